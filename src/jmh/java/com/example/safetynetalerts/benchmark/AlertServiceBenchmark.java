@@ -0,0 +1,103 @@
+package com.example.safetynetalerts.benchmark;
+
+import com.example.safetynetalerts.api.ChildAlertResponse;
+import com.example.safetynetalerts.api.FireResponse;
+import com.example.safetynetalerts.api.FireStationResponse;
+import com.example.safetynetalerts.repository.DataRepository;
+import com.example.safetynetalerts.service.AlertService;
+import com.example.safetynetalerts.service.support.AgeCalculator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The alert computations of {@link AlertService}, alone and followed by the Jackson
+ * serialization the controller triggers. Run with {@code -prof gc} for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlertServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int persons;
+
+    // /fire decodes the medical payloads of the residents when they are off-heap
+    @Param({"true", "false"})
+    public boolean offHeapMedicalPayloads;
+
+    private BenchmarkData data;
+    private DataRepository repository;
+    private AlertService alertService;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        data = BenchmarkData.generate(persons);
+        repository = data.repository(offHeapMedicalPayloads);
+        alertService = new AlertService(repository, new AgeCalculator(), new SimpleMeterRegistry());
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public FireStationResponse fireStationByNumber(RepositoryBenchmark.Cursor cursor) {
+        return alertService.fireStationByNumber(cursor.next(BenchmarkData.STATIONS) + 1);
+    }
+
+    @Benchmark
+    public List<String> phoneByStation(RepositoryBenchmark.Cursor cursor) {
+        return alertService.phoneByStation(cursor.next(BenchmarkData.STATIONS) + 1);
+    }
+
+    @Benchmark
+    public ChildAlertResponse childAlertByAddress(RepositoryBenchmark.Cursor cursor) {
+        return alertService.childAlertByAddress(data.addresses[cursor.next(data.addresses.length)]);
+    }
+
+    // one character dropped from the street name, answered from the trigram index
+    @Benchmark
+    public List<String> suggestAddresses(RepositoryBenchmark.Cursor cursor) {
+        String address = data.addresses[cursor.next(data.addresses.length)];
+        return repository.current().suggestAddresses(address.replace("Generated", "Generatd"), 5);
+    }
+
+    @Benchmark
+    public FireResponse fireByAddress(RepositoryBenchmark.Cursor cursor) {
+        return alertService.fireByAddress(data.addresses[cursor.next(data.addresses.length)]);
+    }
+
+    @Benchmark
+    public byte[] fireStationByNumberSerialized(RepositoryBenchmark.Cursor cursor) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(fireStationByNumber(cursor));
+    }
+
+    @Benchmark
+    public byte[] phoneByStationSerialized(RepositoryBenchmark.Cursor cursor) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(phoneByStation(cursor));
+    }
+
+    @Benchmark
+    public byte[] childAlertByAddressSerialized(RepositoryBenchmark.Cursor cursor) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(childAlertByAddress(cursor));
+    }
+}
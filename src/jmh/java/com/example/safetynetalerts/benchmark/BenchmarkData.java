@@ -0,0 +1,55 @@
+package com.example.safetynetalerts.benchmark;
+
+import com.example.safetynetalerts.config.DataProperties;
+import com.example.safetynetalerts.model.DataRoot;
+import com.example.safetynetalerts.model.Firestation;
+import com.example.safetynetalerts.model.Person;
+import com.example.safetynetalerts.repository.DataRepository;
+import com.example.safetynetalerts.repository.journal.MutationJournal;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Deterministic benchmark fixture from {@link DatasetGenerator}: households of three on average,
+ * spread over {@value #STATIONS} stations.
+ */
+final class BenchmarkData {
+    static final int STATIONS = 10;
+
+    final DataRoot root;
+    final String[] addresses;
+    final String[] firstNames;
+    final String[] lastNames;
+
+    private BenchmarkData(DataRoot root) {
+        this.root = root;
+        this.addresses = root.getFirestations().stream().map(Firestation::getAddress).toArray(String[]::new);
+        this.firstNames = root.getPersons().stream().map(Person::getFirstName).toArray(String[]::new);
+        this.lastNames = root.getPersons().stream().map(Person::getLastName).toArray(String[]::new);
+    }
+
+    static BenchmarkData generate(int persons) {
+        return new BenchmarkData(DatasetGenerator.generate(
+                new DatasetGenerator.Spec(persons, Math.max(1, persons / 3), STATIONS, 2, 1, 42)));
+    }
+
+    /**
+     * @return a repository loaded the way the application loads it, from a JSON file
+     */
+    DataRepository repository() throws IOException {
+        return repository(false);
+    }
+
+    DataRepository repository(boolean offHeapMedicalPayloads) throws IOException {
+        Path file = Files.createTempFile("safetynet-benchmark", ".json");
+        file.toFile().deleteOnExit();
+        DatasetGenerator.write(root, file);
+        DataRepository repository = new DataRepository(new DefaultResourceLoader(), MutationJournal.DISABLED,
+                new DataProperties(file.toUri().toString(), null, false, true, offHeapMedicalPayloads));
+        repository.reload();
+        return repository;
+    }
+}
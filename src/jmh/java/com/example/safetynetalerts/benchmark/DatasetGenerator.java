@@ -0,0 +1,107 @@
+package com.example.safetynetalerts.benchmark;
+
+import com.example.safetynetalerts.model.DataRoot;
+import com.example.safetynetalerts.model.Firestation;
+import com.example.safetynetalerts.model.MedicalRecord;
+import com.example.safetynetalerts.model.Person;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates synthetic {@link DataRoot} datasets. The same {@link Spec} always yields the same data.
+ * <p>
+ * Persons are spread over the households at random, households round-robin over the stations,
+ * and every person has a medical record with birthdates between 1930 and 2024.
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec@generate -Dbench.args="--persons 1000000 --out county.json.gz"
+ * </pre>
+ */
+public final class DatasetGenerator {
+    private static final String[] MEDICATIONS = {"aznol:350mg", "hydrapermazol:100mg", "noznazol:250mg",
+            "pharmacol:5000mg", "terazine:500mg", "noxidian:100mg", "tetracyclaz:650mg", "dodoxadin:30mg"};
+    private static final String[] ALLERGIES = {"nillacilan", "peanut", "shellfish", "xilliathal", "gluten"};
+
+    /**
+     * @param medications medications per medical record
+     * @param allergies   allergies per medical record
+     */
+    public record Spec(int persons, int households, int stations, int medications, int allergies, long seed) {
+    }
+
+    private DatasetGenerator() {
+    }
+
+    public static DataRoot generate(Spec spec) {
+        Random random = new Random(spec.seed());
+        List<Firestation> firestations = new ArrayList<>(spec.households());
+        for (int household = 0; household < spec.households(); household++) {
+            Firestation firestation = new Firestation();
+            firestation.setAddress(address(household));
+            firestation.setStation(household % spec.stations() + 1);
+            firestations.add(firestation);
+        }
+        List<Person> persons = new ArrayList<>(spec.persons());
+        List<MedicalRecord> records = new ArrayList<>(spec.persons());
+        for (int i = 0; i < spec.persons(); i++) {
+            // the first pass fills every household once, the rest land anywhere
+            int household = i < spec.households() ? i : random.nextInt(spec.households());
+            String firstName = "Person" + i;
+            String lastName = "Family" + household;
+            persons.add(new Person(firstName, lastName, address(household), "Culver", "97451",
+                    String.format("841-%03d-%04d", random.nextInt(1000), random.nextInt(10000)),
+                    firstName.toLowerCase() + "@email.com"));
+            MedicalRecord record = new MedicalRecord();
+            record.setFirstName(firstName);
+            record.setLastName(lastName);
+            record.setBirthdate(String.format("%02d/%02d/%d",
+                    random.nextInt(12) + 1, random.nextInt(28) + 1, 1930 + random.nextInt(95)));
+            record.setMedications(pick(MEDICATIONS, spec.medications(), random));
+            record.setAllergies(pick(ALLERGIES, spec.allergies(), random));
+            records.add(record);
+        }
+        DataRoot root = new DataRoot();
+        root.setPersons(persons);
+        root.setMedicalrecords(records);
+        root.setFirestations(firestations);
+        return root;
+    }
+
+    /**
+     * Writes the dataset as JSON, gzip compressed when the file name ends with {@code .gz}.
+     */
+    public static void write(DataRoot root, Path target) throws IOException {
+        try (OutputStream out = target.toString().endsWith(".gz")
+                ? new GZIPOutputStream(Files.newOutputStream(target), 1 << 16)
+                : Files.newOutputStream(target)) {
+            new ObjectMapper().writeValue(out, root);
+        }
+    }
+
+    static String address(int household) {
+        return household + " Generated St";
+    }
+
+    private static List<String> pick(String[] values, int count, Random random) {
+        List<String> picked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            picked.add(values[random.nextInt(values.length)]);
+        }
+        return picked;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = new Options(args);
+        Path out = Path.of(options.value("out", "generated.json"));
+        long start = System.nanoTime();
+        write(generate(options.spec()), out);
+        System.out.printf("Wrote %s in %d ms%n", out, (System.nanoTime() - start) / 1_000_000);
+    }
+}
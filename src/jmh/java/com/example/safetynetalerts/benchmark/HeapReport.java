@@ -0,0 +1,81 @@
+package com.example.safetynetalerts.benchmark;
+
+import com.example.safetynetalerts.config.DataProperties;
+import com.example.safetynetalerts.repository.DataRepository;
+import com.example.safetynetalerts.repository.Dataset;
+import com.example.safetynetalerts.repository.journal.MutationJournal;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Retained heap per resident of a loaded dataset, with and without the string dictionary, and with
+ * the medical payloads on the heap or off it (the off-heap bytes are listed apart). The dataset is
+ * read from a JSON file the way the application reads it, and the heap is measured after full
+ * collections before and after the load.
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec@heap -Dbench.args="--persons 1000000"
+ * mvn -Pjmh test-compile exec:exec@heap -Dbench.args="--data /srv/county/export.json.gz"
+ * </pre>
+ * Options: the {@link DatasetGenerator} ones, or {@code --data} to measure an existing file.
+ */
+public final class HeapReport {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private HeapReport() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        String data = options.value("data", null);
+        Path file;
+        if (data == null) {
+            file = Files.createTempFile("safetynet-heap", ".json");
+            file.toFile().deleteOnExit();
+            DatasetGenerator.write(DatasetGenerator.generate(options.spec()), file);
+        } else {
+            file = Path.of(data);
+        }
+        System.out.printf("%-12s %-10s %10s %12s %14s %12s %12s%n", "dictionary", "medical", "persons", "heap MB",
+                "bytes/person", "dictionary", "off-heap MB");
+        for (boolean offHeap : new boolean[] { false, true }) {
+            for (boolean dedupe : new boolean[] { false, true }) {
+                measure(file, dedupe, offHeap);
+            }
+        }
+    }
+
+    private static void measure(Path file, boolean dedupe, boolean offHeap) throws Exception {
+        long before = usedAfterGc();
+        DataRepository repository = new DataRepository(new DefaultResourceLoader(), MutationJournal.DISABLED,
+                new DataProperties(file.toUri().toString(), null, false, dedupe, offHeap));
+        repository.reload();
+        long after = usedAfterGc();
+        Dataset dataset = repository.current();
+        long retained = after - before;
+        System.out.printf("%-12s %-10s %10d %12.1f %14d %12d %12.2f%n", dedupe ? "on" : "off",
+                offHeap ? "off-heap" : "heap", dataset.personCount(), retained / (1024.0 * 1024.0),
+                retained / Math.max(1, dataset.personCount()), dataset.dictionarySize(),
+                dataset.medicalPayloadBytes() / (1024.0 * 1024.0));
+        Reference.reachabilityFence(repository);
+    }
+
+    private static long usedAfterGc() throws InterruptedException {
+        long used = Long.MAX_VALUE;
+        // a few rounds, until the figure stops going down
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            long now = MEMORY.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                break;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.safetynetalerts.benchmark;
+
+import com.example.safetynetalerts.SafetynetAlertsApplication;
+import com.example.safetynetalerts.model.DataRoot;
+import com.example.safetynetalerts.model.Firestation;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end load test: boots the application on a random port with a generated dataset and
+ * drives the real controllers over HTTP with a mixed read/write workload, then reports
+ * throughput and latency percentiles per operation.
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec@load -Dbench.args="--persons 100000 --threads 32 --seconds 30"
+ * </pre>
+ * Options: the {@link DatasetGenerator} ones, plus {@code --threads}, {@code --warmup} and
+ * {@code --seconds}, and {@code --mix} as percentages in {@link Op} order
+ * (default {@code 30,20,25,10,10,5}).
+ * <p>
+ * {@code --modes platform,virtual} runs the same load once per request execution mode, each on a
+ * fresh application, to compare the Tomcat platform thread pool (size with {@code --tomcat-threads})
+ * with virtual threads, e.g. on the alert endpoints only:
+ * <pre>
+ * -Dbench.args="--modes platform,virtual --threads 400 --mix 40,30,30,0,0,0"
+ * </pre>
+ */
+public final class LoadHarness {
+
+    enum Op { FIRESTATION, PHONE_ALERT, CHILD_ALERT, CREATE_PERSON, UPDATE_PERSON, DELETE_PERSON }
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final DataRoot data;
+    private final int[] mix;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private LoadHarness(HttpClient client, String baseUrl, DataRoot data, int[] mix) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.data = data;
+        this.mix = mix;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        DatasetGenerator.Spec spec = options.spec();
+        int threads = options.intValue("threads", 16);
+        int warmup = options.intValue("warmup", 10);
+        int seconds = options.intValue("seconds", 30);
+        int[] mix = parseMix(options.value("mix", "30,20,25,10,10,5"));
+
+        Path dir = Files.createTempDirectory("safetynet-load");
+        Path dataFile = dir.resolve("data.json");
+        DataRoot data = DatasetGenerator.generate(spec);
+        DatasetGenerator.write(data, dataFile);
+
+        System.out.printf("%d persons, %d households, %d stations; %d threads, warmup %ds, run %ds%n",
+                spec.persons(), spec.households(), spec.stations(), threads, warmup, seconds);
+        for (String mode : options.value("modes", "platform").split(",")) {
+            List<String> arguments = new ArrayList<>(List.of(
+                    "--server.port=0",
+                    "--management.server.port=0",
+                    "--safetynet.data.location=" + dataFile.toUri(),
+                    "--safetynet.journal.path=" + dir.resolve(mode + "-journal.ndjson"),
+                    "--logging.level.com.example.safetynetalerts=WARN",
+                    "--spring.threads.virtual.enabled=" + switch (mode.trim()) {
+                        case "platform" -> false;
+                        case "virtual" -> true;
+                        default -> throw new IllegalArgumentException("Unknown mode " + mode);
+                    }));
+            String tomcatThreads = options.value("tomcat-threads", null);
+            if (tomcatThreads != null) {
+                arguments.add("--server.tomcat.threads.max=" + tomcatThreads);
+            }
+            SpringApplication application = new SpringApplication(SafetynetAlertsApplication.class);
+            try (ConfigurableApplicationContext context = application.run(arguments.toArray(String[]::new))) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(5)).build();
+                LoadHarness harness = new LoadHarness(client, "http://localhost:" + port, data, mix);
+
+                harness.run(threads, Duration.ofSeconds(warmup), false);
+                System.out.printf("%n%s threads%n", mode.trim());
+                harness.run(threads, Duration.ofSeconds(seconds), true).print(seconds);
+            }
+        }
+    }
+
+    private Report run(int threads, Duration duration, boolean measure) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Report>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int worker = t;
+                workers.add(pool.submit(() -> work(worker, deadline, measure)));
+            }
+            Report total = new Report();
+            for (Future<Report> worker : workers) {
+                total.merge(worker.get());
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Report work(int worker, long deadline, boolean measure) {
+        SplittableRandom random = new SplittableRandom(worker);
+        Report report = new Report();
+        // each worker only updates and deletes the persons it created itself
+        List<String> created = new ArrayList<>();
+        List<Firestation> addresses = data.getFirestations();
+        int stations = addresses.stream().mapToInt(Firestation::getStation).max().orElse(1);
+        while (System.nanoTime() < deadline) {
+            Op op = pick(random.nextInt(100));
+            if ((op == Op.UPDATE_PERSON || op == Op.DELETE_PERSON) && created.isEmpty()) {
+                op = Op.CREATE_PERSON;
+            }
+            HttpRequest request = switch (op) {
+                case FIRESTATION -> get("/firestation?stationNumber=" + (random.nextInt(stations) + 1));
+                case PHONE_ALERT -> get("/phoneAlert?stationNumber=" + (random.nextInt(stations) + 1));
+                case CHILD_ALERT -> get("/childAlert?address="
+                        + encode(addresses.get(random.nextInt(addresses.size())).getAddress()));
+                case CREATE_PERSON -> {
+                    String firstName = "Load" + sequence.incrementAndGet();
+                    created.add(firstName);
+                    yield send("POST", "/person", personJson(firstName, random));
+                }
+                case UPDATE_PERSON -> {
+                    String firstName = created.get(random.nextInt(created.size()));
+                    yield send("PUT", "/person?firstName=" + firstName + "&lastName=Harness",
+                            personJson(firstName, random));
+                }
+                case DELETE_PERSON -> send("DELETE", "/person?firstName=" + created.remove(created.size() - 1)
+                        + "&lastName=Harness", null);
+            };
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                ok = status < 400;
+            } catch (Exception e) {
+                ok = false;
+            }
+            if (measure) {
+                report.record(op, System.nanoTime() - start, ok);
+            }
+        }
+        return report;
+    }
+
+    private Op pick(int roll) {
+        int cumulative = 0;
+        for (int i = 0; i < mix.length; i++) {
+            cumulative += mix[i];
+            if (roll < cumulative) {
+                return Op.values()[i];
+            }
+        }
+        return Op.FIRESTATION;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest send(String method, String path, String json) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path));
+        if (json == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private String personJson(String firstName, SplittableRandom random) {
+        String address = data.getFirestations().get(random.nextInt(data.getFirestations().size())).getAddress();
+        return """
+                {"firstName":"%s","lastName":"Harness","address":"%s","city":"Culver","zip":"97451",\
+                "phone":"841-%03d-%04d","email":"%s@email.com"}"""
+                .formatted(firstName, address, random.nextInt(1000), random.nextInt(10000), firstName.toLowerCase());
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static int[] parseMix(String mix) {
+        String[] parts = mix.split(",");
+        if (parts.length != Op.values().length) {
+            throw new IllegalArgumentException("--mix needs " + Op.values().length + " percentages");
+        }
+        int[] percentages = new int[parts.length];
+        int sum = 0;
+        for (int i = 0; i < parts.length; i++) {
+            percentages[i] = Integer.parseInt(parts[i].trim());
+            sum += percentages[i];
+        }
+        if (sum != 100) {
+            throw new IllegalArgumentException("--mix must add up to 100, got " + sum);
+        }
+        return percentages;
+    }
+
+    /**
+     * Latencies per operation. Every sample is kept, so percentiles are exact.
+     */
+    static final class Report {
+        private final Map<Op, Samples> samples = new EnumMap<>(Op.class);
+
+        void record(Op op, long nanos, boolean ok) {
+            samples.computeIfAbsent(op, o -> new Samples()).add(nanos, ok);
+        }
+
+        void merge(Report other) {
+            other.samples.forEach((op, s) -> samples.computeIfAbsent(op, o -> new Samples()).addAll(s));
+        }
+
+        void print(int seconds) {
+            System.out.printf("%-14s %10s %8s %10s %10s %10s %10s %10s%n",
+                    "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+            Samples all = new Samples();
+            samples.forEach((op, s) -> {
+                print(op.name(), s, seconds);
+                all.addAll(s);
+            });
+            print("TOTAL", all, seconds);
+        }
+
+        private static void print(String name, Samples s, int seconds) {
+            long[] sorted = s.sorted();
+            System.out.printf("%-14s %10d %8d %10.0f %10.3f %10.3f %10.3f %10.3f%n", name, sorted.length,
+                    s.errors, (double) sorted.length / seconds, millis(sorted, 0.50), millis(sorted, 0.99),
+                    millis(sorted, 0.999), sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        }
+
+        private static double millis(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    static final class Samples {
+        private long[] nanos = new long[1024];
+        private int size;
+        private int errors;
+
+        void add(long value, boolean ok) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.nanos[i], true);
+            }
+            errors += other.errors;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
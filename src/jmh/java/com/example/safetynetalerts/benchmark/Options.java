@@ -0,0 +1,45 @@
+package com.example.safetynetalerts.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code --name value} command line options of the benchmark tools.
+ */
+final class Options {
+    private final Map<String, String> values = new HashMap<>();
+
+    Options(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --name value pairs, got " + args[i]);
+            }
+            values.put(args[i].substring(2), args[++i]);
+        }
+    }
+
+    int intValue(String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    long longValue(String name, long defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    String value(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    DatasetGenerator.Spec spec() {
+        int persons = intValue("persons", 100_000);
+        return new DatasetGenerator.Spec(
+                persons,
+                intValue("households", Math.max(1, persons / 3)),
+                intValue("stations", 10),
+                intValue("medications", 2),
+                intValue("allergies", 1),
+                longValue("seed", 42));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.safetynetalerts.benchmark;
+
+import com.example.safetynetalerts.model.MedicalRecord;
+import com.example.safetynetalerts.model.Person;
+import com.example.safetynetalerts.repository.DataRepository;
+import com.example.safetynetalerts.repository.Resident;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index lookups of {@link DataRepository}. Each invocation moves to the next key so that
+ * the whole index is exercised, not one hot entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int persons;
+
+    private BenchmarkData data;
+    private DataRepository repository;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int next(int bound) {
+            if (++next >= bound) {
+                next = 0;
+            }
+            return next;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        data = BenchmarkData.generate(persons);
+        repository = data.repository();
+    }
+
+    @Benchmark
+    public List<Person> getPersonsByAddress(Cursor cursor) {
+        return repository.getPersonsByAddress(data.addresses[cursor.next(data.addresses.length)]);
+    }
+
+    @Benchmark
+    public List<Person> getPersonByStation(Cursor cursor) {
+        return repository.getPersonByStation(cursor.next(BenchmarkData.STATIONS) + 1);
+    }
+
+    @Benchmark
+    public Optional<MedicalRecord> getMedicalRecord(Cursor cursor) {
+        int i = cursor.next(data.firstNames.length);
+        return repository.getMedicalRecord(data.firstNames[i], data.lastNames[i]);
+    }
+
+    @Benchmark
+    public List<List<Resident>> getHouseholdsByStations(Cursor cursor) {
+        int station = cursor.next(BenchmarkData.STATIONS);
+        return repository.current().getHouseholdsByStations(
+                List.of(station + 1, (station + 1) % BenchmarkData.STATIONS + 1));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.safetynetalerts.benchmark;
+
+import com.example.safetynetalerts.config.DataProperties;
+import com.example.safetynetalerts.model.Firestation;
+import com.example.safetynetalerts.model.MedicalRecord;
+import com.example.safetynetalerts.model.Person;
+import com.example.safetynetalerts.repository.DataRepository;
+import com.example.safetynetalerts.repository.journal.MutationJournal;
+import com.example.safetynetalerts.repository.loader.DatasetSink;
+import com.example.safetynetalerts.repository.snapshot.BinarySnapshot;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Time to a served, fully indexed dataset, from the JSON file and from the binary snapshot, and how
+ * the snapshot time splits between decoding the file and building the indexes. Best of a few rounds,
+ * so that the figures are those of a warm JVM.
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec@startup -Dbench.args="--persons 1000000"
+ * </pre>
+ * Options: the {@link DatasetGenerator} ones, and {@code --rounds}.
+ */
+public final class StartupReport {
+
+    private StartupReport() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        int rounds = options.intValue("rounds", 5);
+        Path json = Files.createTempFile("safetynet-startup", ".json");
+        Path snapshot = Files.createTempFile("safetynet-startup", ".snap");
+        json.toFile().deleteOnExit();
+        snapshot.toFile().deleteOnExit();
+        DatasetGenerator.write(DatasetGenerator.generate(options.spec()), json);
+        DataProperties fromJson = new DataProperties(json.toUri().toString(), null, false, true, false);
+        DataProperties fromSnapshot = new DataProperties(json.toUri().toString(), snapshot, false, true, false);
+        repository(fromJson).exportSnapshot(snapshot);
+
+        long jsonNanos = Long.MAX_VALUE;
+        long snapshotNanos = Long.MAX_VALUE;
+        long decodeNanos = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            jsonNanos = Math.min(jsonNanos, timeReload(fromJson));
+            snapshotNanos = Math.min(snapshotNanos, timeReload(fromSnapshot));
+            long start = System.nanoTime();
+            BinarySnapshot.read(snapshot, new DiscardingSink());
+            decodeNanos = Math.min(decodeNanos, System.nanoTime() - start);
+        }
+        System.out.printf("%10s %10s %14s %10s %10s %10s%n", "persons", "json ms", "snapshot ms", "decode ms",
+                "index ms", "snap MB");
+        System.out.printf("%10d %10d %14d %10d %10d %10.1f%n", options.spec().persons(), jsonNanos / 1_000_000,
+                snapshotNanos / 1_000_000, decodeNanos / 1_000_000, (snapshotNanos - decodeNanos) / 1_000_000,
+                Files.size(snapshot) / (1024.0 * 1024.0));
+    }
+
+    private static DataRepository repository(DataProperties properties) {
+        DataRepository repository = new DataRepository(new DefaultResourceLoader(), MutationJournal.DISABLED,
+                properties);
+        repository.reload();
+        return repository;
+    }
+
+    private static long timeReload(DataProperties properties) {
+        System.gc();
+        long start = System.nanoTime();
+        repository(properties);
+        return System.nanoTime() - start;
+    }
+
+    private static final class DiscardingSink implements DatasetSink {
+        @Override
+        public void person(Person person) {
+        }
+
+        @Override
+        public void firestation(Firestation firestation) {
+        }
+
+        @Override
+        public void medicalRecord(MedicalRecord medicalRecord) {
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.safetynetalerts.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FireResponse {
+    private List<Integer> stations;
+    private List<ResidentMedicalDto> residents;
+}
@@ -0,0 +1,14 @@
+package com.example.safetynetalerts.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ImportLineError {
+    public enum Status { DUPLICATE, INVALID, MALFORMED }
+
+    private int line;
+    private Status status;
+    private String message;
+}
@@ -0,0 +1,22 @@
+package com.example.safetynetalerts.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Summary of a bulk import. Only the rejected records are listed, by the line they start on;
+ * every other record was created.
+ */
+@Data
+@AllArgsConstructor
+public class PersonImportResponse {
+    private int received;
+    private int created;
+    private int duplicates;
+    private int invalid;
+    private List<ImportLineError> errors;
+    /** true when more records were rejected than listed in {@code errors} */
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,18 @@
+package com.example.safetynetalerts.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PersonInfoDto {
+    private String firstName;
+    private String lastName;
+    private String address;
+    private Integer age;
+    private String email;
+    private List<String> medications;
+    private List<String> allergies;
+}
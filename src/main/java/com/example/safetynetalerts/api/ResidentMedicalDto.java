@@ -0,0 +1,17 @@
+package com.example.safetynetalerts.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ResidentMedicalDto {
+    private String firstName;
+    private String lastName;
+    private String phone;
+    private Integer age;
+    private List<String> medications;
+    private List<String> allergies;
+}
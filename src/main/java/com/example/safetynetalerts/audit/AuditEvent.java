@@ -0,0 +1,17 @@
+package com.example.safetynetalerts.audit;
+
+/**
+ * One served request. Only scalars and references to strings the request already holds, so
+ * recording an event costs one small allocation whatever the size of the answer.
+ *
+ * @param epochMillis   when the answer was ready
+ * @param endpoint      request path, e.g. {@code /firestation}
+ * @param key           the lookup parameter (station number, address, ...)
+ * @param status        HTTP status of the answer
+ * @param results       number of items in the answer
+ * @param durationNanos time spent in the handler
+ * @param payload       the answer itself when this event was sampled for payload detail, else null
+ */
+public record AuditEvent(long epochMillis, String endpoint, String key, int status, int results,
+                         long durationNanos, Object payload) {
+}
@@ -0,0 +1,46 @@
+package com.example.safetynetalerts.audit;
+
+/**
+ * Structured access/audit log of the alert endpoints.
+ */
+public interface AuditLog {
+
+    /**
+     * Queues the event and returns immediately; never blocks the request thread. When the
+     * writer falls behind and the buffer is full the event is dropped and counted.
+     * @param payload the answer; kept only when the event is sampled for payload detail
+     */
+    void record(String endpoint, String key, int status, int results, long durationNanos, Object payload);
+
+    /**
+     * @return events written to the log so far
+     */
+    long written();
+
+    /**
+     * @return events dropped because the buffer was full
+     */
+    long dropped();
+
+    void close();
+
+    AuditLog DISABLED = new AuditLog() {
+        @Override
+        public void record(String endpoint, String key, int status, int results, long durationNanos, Object payload) {
+        }
+
+        @Override
+        public long written() {
+            return 0;
+        }
+
+        @Override
+        public long dropped() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+}
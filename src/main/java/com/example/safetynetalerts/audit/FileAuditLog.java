@@ -0,0 +1,275 @@
+package com.example.safetynetalerts.audit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NDJSON audit file fed through a bounded buffer.
+ * <p>
+ * Request threads only {@code offer} to an {@link ArrayBlockingQueue} of fixed capacity; when it is
+ * full the event is dropped and counted rather than waiting for the disk. A single writer thread
+ * drains up to maxBatchSize events, formats them and writes them with one {@code write} call.
+ * The file is not fsynced: losing the last events on a crash is acceptable for an access log.
+ * <p>
+ * Payloads are sampled when the event is recorded, so an unsampled answer is not retained, and
+ * serialized on the writer thread with the contact and medical fields redacted.
+ * <p>
+ * The key is written in clear only for the endpoints looked up by station number. Addresses,
+ * last names and cities are replaced by a truncated SHA-256 digest: the lines of one key can
+ * still be grouped, but the file does not say who or where was looked up.
+ * <p>
+ * Once the file would outgrow maxFileBytes it is rotated: {@code audit.ndjson} becomes
+ * {@code audit.ndjson.1}, the older files shift by one and the one beyond maxHistory is deleted.
+ */
+@Slf4j
+public class FileAuditLog implements AuditLog {
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    // contact and medical details; phoneAlert and communityEmail answers are bare lists of them
+    static final Set<String> REDACTED_FIELDS = Set.of("phone", "phoneNumber", "email", "medications", "allergies");
+    static final String REDACTED = "***";
+    // looked up by station number, the only keys that are not personal data
+    static final Set<String> CLEAR_KEY_ENDPOINTS = Set.of("/firestation", "/phoneAlert", "/flood/stations");
+    private static final int KEY_DIGEST_BYTES = 8;
+
+    private final Path path;
+    private final double payloadSampleRate;
+    private final long flushIntervalNanos;
+    private final int maxBatchSize;
+    private final long maxFileBytes;
+    private final int maxHistory;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter payloadWriter;
+    // replaced by the writer thread on rotation
+    private FileChannel channel;
+
+    private final BlockingQueue<AuditEvent> queue;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public FileAuditLog(Path path, int capacity, int maxBatchSize, Duration flushInterval, double payloadSampleRate,
+                        long maxFileBytes, int maxHistory, ObjectMapper objectMapper) {
+        this.path = path;
+        this.payloadSampleRate = payloadSampleRate;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxFileBytes = maxFileBytes;
+        this.maxHistory = Math.max(1, maxHistory);
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        // lines are ended explicitly, no separator between root values
+        this.payloadWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = open(path);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open audit log " + path, e);
+        }
+        this.writer = new Thread(this::runWriter, "audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        log.info("Audit log {} opened, payload sample rate {}", path, payloadSampleRate);
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void record(String endpoint, String key, int status, int results, long durationNanos, Object payload) {
+        if (!running) {
+            dropped.incrementAndGet();
+            return;
+        }
+        Object sampled = payload != null && sample() ? payload : null;
+        if (!queue.offer(new AuditEvent(System.currentTimeMillis(), endpoint, key, status, results,
+                durationNanos, sampled))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private boolean sample() {
+        return payloadSampleRate >= 1.0
+                || (payloadSampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < payloadSampleRate);
+    }
+
+    @Override
+    public long written() {
+        return written.get();
+    }
+
+    @Override
+    public long dropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 5_000);
+            channel.close();
+        } catch (IOException e) {
+            log.error("Error closing audit log {}", path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- WRITER THREAD ------------------------------------------
+
+    private void runWriter() {
+        List<AuditEvent> batch = new ArrayList<>(maxBatchSize);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+        long reportedDrops = 0;
+        long lastReport = System.nanoTime() - DROP_REPORT_INTERVAL_NANOS;
+
+        while (running || !queue.isEmpty()) {
+            AuditEvent first;
+            try {
+                first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first != null) {
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                try {
+                    writeBatch(batch, buffer);
+                    written.addAndGet(batch.size());
+                } catch (IOException e) {
+                    log.error("Writing {} audit events failed", batch.size(), e);
+                }
+                batch.clear();
+            }
+            long drops = dropped.get();
+            if (drops != reportedDrops && System.nanoTime() - lastReport >= DROP_REPORT_INTERVAL_NANOS) {
+                log.warn("Audit buffer full, {} events dropped so far", drops);
+                reportedDrops = drops;
+                lastReport = System.nanoTime();
+            }
+        }
+    }
+
+    private void writeBatch(List<AuditEvent> batch, ByteArrayOutputStream buffer) throws IOException {
+        buffer.reset();
+        try (JsonGenerator generator = payloadWriter.createGenerator(buffer)) {
+            for (AuditEvent event : batch) {
+                generator.writeStartObject();
+                generator.writeStringField("ts", Instant.ofEpochMilli(event.epochMillis()).toString());
+                generator.writeStringField("endpoint", event.endpoint());
+                generator.writeStringField("key", key(event.endpoint(), event.key()));
+                generator.writeNumberField("status", event.status());
+                generator.writeNumberField("results", event.results());
+                generator.writeNumberField("durationMicros", event.durationNanos() / 1_000);
+                if (event.payload() != null) {
+                    generator.writeFieldName("payload");
+                    payloadWriter.writeValue(generator, redacted(objectMapper.valueToTree(event.payload()), true));
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+        if (channel.size() > 0 && channel.size() + buffer.size() > maxFileBytes) {
+            rotate();
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * @return the key of an event as written: in clear for the {@link #CLEAR_KEY_ENDPOINTS}, else
+     * the first bytes of its SHA-256 digest in hex
+     */
+    static String key(String endpoint, String key) {
+        if (key == null || CLEAR_KEY_ENDPOINTS.contains(endpoint)) {
+            return key;
+        }
+        byte[] digest = sha256().digest(key.getBytes(StandardCharsets.UTF_8));
+        return "sha256:" + HexFormat.of().formatHex(digest, 0, KEY_DIGEST_BYTES);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to provide it
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Masks the {@link #REDACTED_FIELDS} and, at the top level, the strings of a bare list.
+     */
+    static JsonNode redacted(JsonNode node, boolean topLevel) {
+        if (node instanceof ObjectNode object) {
+            object.properties().forEach(field -> field.setValue(REDACTED_FIELDS.contains(field.getKey())
+                    ? TextNode.valueOf(REDACTED)
+                    : redacted(field.getValue(), false)));
+        } else if (node instanceof ArrayNode array) {
+            for (int i = 0; i < array.size(); i++) {
+                array.set(i, topLevel && array.get(i).isTextual() ? TextNode.valueOf(REDACTED)
+                        : redacted(array.get(i), false));
+            }
+        }
+        return node;
+    }
+
+    private void rotate() throws IOException {
+        channel.close();
+        try {
+            Files.deleteIfExists(rotated(maxHistory));
+            for (int i = maxHistory - 1; i >= 1; i--) {
+                if (Files.exists(rotated(i))) {
+                    Files.move(rotated(i), rotated(i + 1));
+                }
+            }
+            Files.move(path, rotated(1));
+            log.info("Audit log {} rotated", path);
+        } finally {
+            // keeps appending to the current file if the rotation failed
+            channel = open(path);
+        }
+    }
+
+    private Path rotated(int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.safetynetalerts.config;
+
+import com.example.safetynetalerts.audit.AuditLog;
+import com.example.safetynetalerts.audit.FileAuditLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditConfig {
+
+    @Bean(destroyMethod = "close")
+    public AuditLog auditLog(AuditProperties properties, ObjectMapper objectMapper) {
+        if (!properties.enabled()) {
+            return AuditLog.DISABLED;
+        }
+        return new FileAuditLog(properties.path(), properties.capacity(), properties.maxBatchSize(),
+                properties.flushInterval(), properties.payloadSampleRate(), properties.maxFileSize().toBytes(),
+                properties.maxHistory(), objectMapper);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.safetynetalerts.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the access/audit log of the alert endpoints ({@code safetynet.audit.*}).
+ *
+ * @param enabled           when false no event is recorded
+ * @param path              NDJSON audit file, appended to
+ * @param capacity          events buffered for the writer; beyond that new events are dropped
+ * @param maxBatchSize      upper bound of events written by one write call
+ * @param flushInterval     idle poll of the writer thread
+ * @param payloadSampleRate share of events, between 0 and 1, that also carry the answer, contact and
+ *                          medical fields redacted; 0 unless opted in
+ * @param maxFileSize       size at which the file is rotated
+ * @param maxHistory        rotated files kept next to the current one
+ */
+@ConfigurationProperties(prefix = "safetynet.audit")
+public record AuditProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/audit.ndjson") Path path,
+        @DefaultValue("65536") int capacity,
+        @DefaultValue("1024") int maxBatchSize,
+        @DefaultValue("200ms") Duration flushInterval,
+        @DefaultValue("0") double payloadSampleRate,
+        @DefaultValue("100MB") DataSize maxFileSize,
+        @DefaultValue("5") int maxHistory) {
+}
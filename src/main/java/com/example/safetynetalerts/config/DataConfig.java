@@ -0,0 +1,9 @@
+package com.example.safetynetalerts.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DataProperties.class)
+public class DataConfig {
+}
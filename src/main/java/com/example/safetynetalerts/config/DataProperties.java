@@ -0,0 +1,30 @@
+package com.example.safetynetalerts.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+/**
+ * Where the base dataset is read from ({@code safetynet.data.*}).
+ *
+ * @param location Spring resource location, e.g. {@code classpath:data.json} or
+ *                 {@code file:/srv/county/export.json.gz}; gzip input is detected automatically
+ * @param snapshot binary snapshot written by the export command; when the file exists its
+ *                 records are read at boot instead of parsing {@code location}, the indexes are
+ *                 still built from them
+ * @param watch    reload the dataset in the background when the snapshot file, or the
+ *                 {@code file:} location, changes on disk
+ * @param dedupeStrings keep one shared copy of the values residents have in common (address,
+ *                 city, zip, phone, email, birthdate, medications and allergies)
+ * @param offHeapMedicalPayloads keep the medication and allergy lists in a direct buffer outside
+ *                 the heap, decoded when an answer needs them; the dictionary then leaves them out
+ */
+@ConfigurationProperties(prefix = "safetynet.data")
+public record DataProperties(
+        @DefaultValue("classpath:data.json") String location,
+        Path snapshot,
+        @DefaultValue("false") boolean watch,
+        @DefaultValue("true") boolean dedupeStrings,
+        @DefaultValue("false") boolean offHeapMedicalPayloads) {
+}
@@ -0,0 +1,21 @@
+package com.example.safetynetalerts.config;
+
+import com.example.safetynetalerts.repository.journal.FileMutationJournal;
+import com.example.safetynetalerts.repository.journal.MutationJournal;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(JournalProperties.class)
+public class JournalConfig {
+
+    @Bean(destroyMethod = "close")
+    public MutationJournal mutationJournal(JournalProperties properties) {
+        if (!properties.enabled()) {
+            return MutationJournal.DISABLED;
+        }
+        return new FileMutationJournal(properties.path(), properties.durability(),
+                properties.flushInterval(), properties.maxBatchSize());
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.safetynetalerts.config;
+
+import com.example.safetynetalerts.repository.journal.Durability;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the person mutation journal ({@code safetynet.journal.*}).
+ *
+ * @param enabled       when false mutations are kept in memory only
+ * @param path          journal file, created if missing
+ * @param durability    BATCH fsyncs every group commit before acknowledging it,
+ *                      PERIODIC acknowledges after the write and fsyncs every flushInterval
+ * @param flushInterval fsync period in PERIODIC mode, also the idle poll of the writer thread
+ * @param maxBatchSize  upper bound of mutations written by one group commit
+ */
+@ConfigurationProperties(prefix = "safetynet.journal")
+public record JournalProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/person-journal.ndjson") Path path,
+        @DefaultValue("BATCH") Durability durability,
+        @DefaultValue("200ms") Duration flushInterval,
+        @DefaultValue("512") int maxBatchSize) {
+}
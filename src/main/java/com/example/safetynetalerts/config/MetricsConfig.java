@@ -0,0 +1,115 @@
+package com.example.safetynetalerts.config;
+
+import com.example.safetynetalerts.audit.AuditLog;
+import com.example.safetynetalerts.repository.DataRepository;
+import com.example.safetynetalerts.repository.Dataset;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Application metrics next to the ones Spring Boot records itself (http.server.requests per
+ * endpoint, JVM). Served by the actuator on the local management port.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Sizes of the dataset generation currently served and of its indexes.
+     */
+    @Bean
+    public MeterBinder datasetMetrics(DataRepository dataRepository) {
+        return registry -> {
+            gauge(registry, "safetynet.dataset.generation", dataRepository, d -> d.getGeneration());
+            gauge(registry, "safetynet.dataset.version", dataRepository, Dataset::getVersion);
+            gauge(registry, "safetynet.dataset.medical.offheap.bytes", dataRepository, Dataset::medicalPayloadBytes);
+            datasetSize(registry, "persons", dataRepository, Dataset::personCount);
+            datasetSize(registry, "medicalrecords", dataRepository, Dataset::medicalRecordCount);
+            datasetSize(registry, "firestations", dataRepository, Dataset::firestationCount);
+            indexSize(registry, "personsByName", dataRepository, Dataset::personCount);
+            indexSize(registry, "medicalRecordsByName", dataRepository, Dataset::medicalRecordCount);
+            indexSize(registry, "residentsByAddress", dataRepository, Dataset::addressCount);
+            indexSize(registry, "residentsByStation", dataRepository, Dataset::stationCount);
+            indexSize(registry, "residentsByLastName", dataRepository, Dataset::lastNameCount);
+            indexSize(registry, "emailsByCity", dataRepository, Dataset::cityCount);
+            indexSize(registry, "stringDictionary", dataRepository, Dataset::dictionarySize);
+        };
+    }
+
+    /**
+     * Events written to the audit log and events dropped because its buffer was full.
+     */
+    @Bean
+    public MeterBinder auditMetrics(AuditLog auditLog) {
+        return registry -> {
+            FunctionCounter.builder("safetynet.audit.events", auditLog, AuditLog::written)
+                    .tag("outcome", "written").register(registry);
+            FunctionCounter.builder("safetynet.audit.events", auditLog, AuditLog::dropped)
+                    .tag("outcome", "dropped").register(registry);
+        };
+    }
+
+    /**
+     * Times the Jackson serialization of response bodies, per body type, so that it can be told
+     * apart from the service work in http.server.requests.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter timedJacksonConverter(ObjectMapper objectMapper,
+                                                                     MeterRegistry registry) {
+        return new TimedJacksonConverter(objectMapper, registry);
+    }
+
+    private static void datasetSize(MeterRegistry registry, String entity, DataRepository repository,
+                                    ToDoubleFunction<Dataset> size) {
+        Gauge.builder("safetynet.dataset.size", repository, r -> size.applyAsDouble(r.current()))
+                .tag("entity", entity).register(registry);
+    }
+
+    private static void indexSize(MeterRegistry registry, String index, DataRepository repository,
+                                  ToDoubleFunction<Dataset> size) {
+        Gauge.builder("safetynet.index.size", repository, r -> size.applyAsDouble(r.current()))
+                .tag("index", index).register(registry);
+    }
+
+    private static void gauge(MeterRegistry registry, String name, DataRepository repository,
+                              ToDoubleFunction<Dataset> value) {
+        Gauge.builder(name, repository, r -> value.applyAsDouble(r.current())).register(registry);
+    }
+
+    static class TimedJacksonConverter extends MappingJackson2HttpMessageConverter {
+        private final MeterRegistry registry;
+        private final Map<Class<?>, Timer> timers = new ConcurrentHashMap<>();
+
+        TimedJacksonConverter(ObjectMapper objectMapper, MeterRegistry registry) {
+            super(objectMapper);
+            this.registry = registry;
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+            long start = System.nanoTime();
+            try {
+                super.writeInternal(object, type, outputMessage);
+            } finally {
+                timers.computeIfAbsent(object.getClass(), c -> Timer.builder("safetynet.serialization")
+                                .tag("type", c.getSimpleName())
+                                .register(registry))
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
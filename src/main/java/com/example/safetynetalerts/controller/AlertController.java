@@ -1,31 +1,57 @@
 package com.example.safetynetalerts.controller;
 
 import com.example.safetynetalerts.api.ChildAlertResponse;
+import com.example.safetynetalerts.api.FireResponse;
 import com.example.safetynetalerts.api.FireStationResponse;
+import com.example.safetynetalerts.api.HouseholdDto;
+import com.example.safetynetalerts.api.PersonInfoDto;
 import com.example.safetynetalerts.api.PersonResponse;
 import com.example.safetynetalerts.model.Person;
+import com.example.safetynetalerts.audit.AuditLog;
+import com.example.safetynetalerts.exception.AddressNotFoundException;
 import com.example.safetynetalerts.service.AlertService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
 
-@Slf4j
-@CrossOrigin
+/**
+ * Alert endpoints. Each answer is recorded as one {@link AuditLog} event (endpoint, key, status,
+ * result count, duration, and the payload when sampled) instead of being logged.
+ */
+@CrossOrigin(exposedHeaders = { HttpHeaders.ETAG, AlertController.CHILDREN_COUNT, AlertController.ADULTS_COUNT })
 @RestController
 public class AlertController {
+    static final String CHILDREN_COUNT = "X-Children-Count";
+    static final String ADULTS_COUNT = "X-Adults-Count";
+
     private final AlertService alertService;
+    private final AuditLog auditLog;
+    // NDJSON: one value per line, flushed by the generator buffer rather than after every value
+    private final ObjectWriter ndjsonWriter;
 
-    public AlertController(AlertService alertService) {
+    public AlertController(AlertService alertService, AuditLog auditLog, ObjectMapper objectMapper) {
         this.alertService = alertService;
+        this.auditLog = auditLog;
+        this.ndjsonWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
     }
 
     @Operation(summary = "This URL must return a list of people covered by the corresponding fire station.",
@@ -33,43 +59,117 @@ public class AlertController {
                     "phone number. Additionally, it must provide a count of the number of adults and the" +
                     "number of children (any individual aged 18 years or younger) in the served area.",
             responses = { @ApiResponse(responseCode = "200", description = "Success"),
+                    @ApiResponse(responseCode = "304", description = "Not Modified since the ETag sent in If-None-Match"),
                     @ApiResponse(responseCode = "400", description = "Bad Request"),
     @ApiResponse(responseCode = "500", description = "Server error")})
     @GetMapping("/firestation")
-    public ResponseEntity<FireStationResponse>fireStation(@RequestParam("stationNumber") int stationNumber) {
-        log.info("Received request : GET firestation ?station number= {}", stationNumber);
+    public ResponseEntity<FireStationResponse>fireStation(@RequestParam("stationNumber") int stationNumber,
+                                                         WebRequest request) {
+        long start = System.nanoTime();
+        String key = String.valueOf(stationNumber);
+        varyOnAccept(request);
+        if (notModified(request, alertService.fireStationEtag(stationNumber))) {
+            audit("/firestation", key, HttpStatus.NOT_MODIFIED, 0, start, null);
+            return null;
+        }
         FireStationResponse result = alertService.fireStationByNumber(stationNumber);
-        log.info("Returning persons covered by fire station {} -> {}", stationNumber, result);
+        audit("/firestation", key, HttpStatus.OK, result.getResidents().size(), start, result);
        return ResponseEntity.ok(result);
     }
 
+    @Operation(summary = "Streams the people covered by the fire station, one JSON object per line.",
+            description = "Selected with Accept: application/x-ndjson. The residents are written as they are read, " +
+                    "so memory does not grow with the station size; the children and adults counts are sent in " +
+                    "the X-Children-Count and X-Adults-Count headers.",
+            responses = { @ApiResponse(responseCode = "200", description = "Success"),
+                    @ApiResponse(responseCode = "304", description = "Not Modified since the ETag sent in If-None-Match"),
+                    @ApiResponse(responseCode = "400", description = "Bad Request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")})
+    @GetMapping(value = "/firestation", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> fireStationStream(@RequestParam("stationNumber") int stationNumber,
+                                                                   WebRequest request) {
+        long start = System.nanoTime();
+        String key = String.valueOf(stationNumber);
+        varyOnAccept(request);
+        if (notModified(request, ndjsonEtag(alertService.fireStationEtag(stationNumber)))) {
+            audit("/firestation", key, HttpStatus.NOT_MODIFIED, 0, start, null);
+            return null;
+        }
+        FireStationResponse result = alertService.fireStationStreamByNumber(stationNumber);
+        // timed up to the start of the stream
+        audit("/firestation", key, HttpStatus.OK, result.getResidents().size(), start, result);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(CHILDREN_COUNT, String.valueOf(result.getChildrenCount()))
+                .header(ADULTS_COUNT, String.valueOf(result.getAdultsCount()))
+                .body(ndjson(result.getResidents()));
+    }
+
     @Operation(summary = "This URL must return a list of phone numbers of residents served by the fire station.",
             description = "It\n" +
                     "will be used to send emergency text messages to specific households.\n",
             responses = { @ApiResponse(responseCode = "200", description = "Success"),
+                    @ApiResponse(responseCode = "304", description = "Not Modified since the ETag sent in If-None-Match"),
                     @ApiResponse(responseCode = "400", description = "Bad Request"),
                     @ApiResponse(responseCode = "500", description = "Server error")})
     @GetMapping("/phoneAlert")
-    public ResponseEntity<List<String>>phoneAlert(@RequestParam("stationNumber") int stationNumber){
-        log.info("Received request : GET phoneAlert for fire station number= {}", stationNumber);
+    public ResponseEntity<List<String>>phoneAlert(@RequestParam("stationNumber") int stationNumber,
+                                                 WebRequest request){
+        long start = System.nanoTime();
+        String key = String.valueOf(stationNumber);
+        varyOnAccept(request);
+        if (notModified(request, alertService.phoneAlertEtag(stationNumber))) {
+            audit("/phoneAlert", key, HttpStatus.NOT_MODIFIED, 0, start, null);
+            return null;
+        }
         List<String> phones = alertService.phoneByStation(stationNumber);
-        log.info("Returning {} phones numbers for fire station #{} -> {} ",phones.size(), stationNumber, phones);
+        audit("/phoneAlert", key, HttpStatus.OK, phones.size(), start, phones);
         return ResponseEntity.ok(phones);
     }
 
+    @Operation(summary = "Streams the phone numbers of residents served by the fire station, one JSON string per line.",
+            description = "Selected with Accept: application/x-ndjson.",
+            responses = { @ApiResponse(responseCode = "200", description = "Success"),
+                    @ApiResponse(responseCode = "304", description = "Not Modified since the ETag sent in If-None-Match"),
+                    @ApiResponse(responseCode = "400", description = "Bad Request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")})
+    @GetMapping(value = "/phoneAlert", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> phoneAlertStream(@RequestParam("stationNumber") int stationNumber,
+                                                                  WebRequest request) {
+        long start = System.nanoTime();
+        String key = String.valueOf(stationNumber);
+        varyOnAccept(request);
+        if (notModified(request, ndjsonEtag(alertService.phoneAlertEtag(stationNumber)))) {
+            audit("/phoneAlert", key, HttpStatus.NOT_MODIFIED, 0, start, null);
+            return null;
+        }
+        List<String> phones = alertService.phoneByStation(stationNumber);
+        audit("/phoneAlert", key, HttpStatus.OK, phones.size(), start, phones);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjson(phones));
+    }
+
     @Operation(summary = "This URL must return a list of children (any individual aged 18 years or younger) living at this address",
             description = "The list must include the first name and last name of each child, their\n" +
                     "age, and a list of other household members. If no children are found, this URL may\n" +
                     "return an empty string.",
             responses = { @ApiResponse(responseCode = "200", description = "Success"),
+                    @ApiResponse(responseCode = "304", description = "Not Modified since the ETag sent in If-None-Match"),
                     @ApiResponse(responseCode = "400", description = "Bad Request"),
+                    @ApiResponse(responseCode = "404", description = "Address not found, candidates lists similar known addresses"),
                     @ApiResponse(responseCode = "500", description = "Server error")})
     @GetMapping("/childAlert")
-    public ResponseEntity<?> childAlert(@RequestParam("address") String address) {
-
+    public ResponseEntity<?> childAlert(@RequestParam("address") String address, WebRequest request) {
+        long start = System.nanoTime();
+        if (notModified(request, alertService.childAlertEtag(address))) {
+            audit("/childAlert", address, HttpStatus.NOT_MODIFIED, 0, start, null);
+            return null;
+        }
         try {
             ChildAlertResponse childAlertResponse = alertService.childAlertByAddress(address);
-            log.info("Returning address {}  for the child alert", address);
+            audit("/childAlert", address, HttpStatus.OK, childAlertResponse.getChildren().size(), start,
+                    childAlertResponse);
             if (childAlertResponse.getChildren().isEmpty()) {
                 Map<String, String> msg = Map.of(
                         "message", "No children are found at the provided address"
@@ -78,11 +178,124 @@ public class AlertController {
             }
             return ResponseEntity.ok(childAlertResponse);
         } catch (IllegalArgumentException e) {
-            Map<String, String> response = Map.of(
-                    "message", "Address is not found in database"
-            );
+            audit("/childAlert", address, HttpStatus.NOT_FOUND, 0, start, null);
+            List<String> candidates = e instanceof AddressNotFoundException notFound
+                    ? notFound.getCandidates() : List.of();
+            Map<String, Object> response = candidates.isEmpty()
+                    ? Map.of("message", "Address is not found in database")
+                    : Map.of("message", "Address is not found in database", "candidates", candidates);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
         }
     }
 
+    @Operation(summary = "This URL must return the fire station number(s) covering the address and its residents.",
+            description = "Each resident comes with name, phone number, age, medications and allergies.",
+            responses = { @ApiResponse(responseCode = "200", description = "Success"),
+                    @ApiResponse(responseCode = "400", description = "Bad Request"),
+                    @ApiResponse(responseCode = "404", description = "Address not found"),
+                    @ApiResponse(responseCode = "500", description = "Server error")})
+    @GetMapping("/fire")
+    public ResponseEntity<?> fire(@RequestParam("address") String address) {
+        long start = System.nanoTime();
+        try {
+            FireResponse response = alertService.fireByAddress(address);
+            audit("/fire", address, HttpStatus.OK, response.getResidents().size(), start, response);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            audit("/fire", address, HttpStatus.NOT_FOUND, 0, start, null);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "message", "Address is not found in database"
+            ));
+        }
+    }
+
+    @Operation(summary = "This URL must return the address, age, email, medications and allergies of every person with that last name.",
+            description = "The last name is matched ignoring case; an unknown last name returns an empty list.",
+            responses = { @ApiResponse(responseCode = "200", description = "Success"),
+                    @ApiResponse(responseCode = "400", description = "Bad Request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")})
+    @GetMapping("/personInfo")
+    public ResponseEntity<List<PersonInfoDto>> personInfo(@RequestParam("lastName") String lastName) {
+        long start = System.nanoTime();
+        List<PersonInfoDto> persons = alertService.personInfoByLastName(lastName);
+        audit("/personInfo", lastName, HttpStatus.OK, persons.size(), start, persons);
+        return ResponseEntity.ok(persons);
+    }
+
+    @Operation(summary = "This URL must return the email addresses of all the residents of the city.",
+            description = "Each address is listed once. The city is matched ignoring case; an unknown city returns an empty list.",
+            responses = { @ApiResponse(responseCode = "200", description = "Success"),
+                    @ApiResponse(responseCode = "400", description = "Bad Request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")})
+    @GetMapping("/communityEmail")
+    public ResponseEntity<List<String>> communityEmail(@RequestParam("city") String city) {
+        long start = System.nanoTime();
+        List<String> emails = alertService.communityEmail(city);
+        audit("/communityEmail", city, HttpStatus.OK, emails.size(), start, emails);
+        return ResponseEntity.ok(emails);
+    }
+
+    @Operation(summary = "This URL must return the households served by all the given fire stations.",
+            description = "Households are grouped by address; each resident comes with name, phone number, age,\n" +
+                    "medications and allergies. An address covered by several of the stations is listed once.",
+            responses = { @ApiResponse(responseCode = "200", description = "Success"),
+                    @ApiResponse(responseCode = "400", description = "Bad Request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")})
+    @GetMapping("/flood/stations")
+    public ResponseEntity<?> floodStations(@RequestParam("stations") List<Integer> stations) {
+        long start = System.nanoTime();
+        // "1,,2" binds an empty element as null
+        if (stations.contains(null)) {
+            audit("/flood/stations", stations.toString(), HttpStatus.BAD_REQUEST, 0, start, null);
+            return ResponseEntity.badRequest().body(Map.of(
+                    "message", "Station numbers must not be empty"
+            ));
+        }
+        List<HouseholdDto> households = alertService.floodByStations(stations);
+        audit("/flood/stations", stations.toString(), HttpStatus.OK, households.size(), start, households);
+        return ResponseEntity.ok(households);
+    }
+
+    private void audit(String endpoint, String key, HttpStatus status, int results, long start, Object payload) {
+        auditLog.record(endpoint, key, status.value(), results, System.nanoTime() - start, payload);
+    }
+
+    /**
+     * Writes the items as NDJSON straight to the response stream, outside the request thread.
+     * Only the generator buffer is held, whatever the number of items.
+     */
+    private StreamingResponseBody ndjson(List<?> items) {
+        return out -> {
+            try (JsonGenerator generator = ndjsonWriter.createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                for (Object item : items) {
+                    ndjsonWriter.writeValue(generator, item);
+                }
+                if (!items.isEmpty()) {
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+    }
+
+    /**
+     * Sets the ETag on the response and, when the client already holds it, turns the answer
+     * into a 304 without a body; the handler must then return null.
+     */
+    private static boolean notModified(WebRequest request, String etag) {
+        return etag != null && request.checkNotModified(etag);
+    }
+
+    // the JSON and NDJSON answers of a URL differ in bytes, so they must not validate each other
+    private static String ndjsonEtag(String etag) {
+        return etag == null ? null : etag.substring(0, etag.length() - 1) + "-nd\"";
+    }
+
+    // set before the conditional check so that 304 answers carry it too
+    private static void varyOnAccept(WebRequest request) {
+        if (request instanceof ServletWebRequest servlet && servlet.getResponse() != null) {
+            servlet.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+    }
+
 }
@@ -0,0 +1,48 @@
+package com.example.safetynetalerts.controller;
+
+import com.example.safetynetalerts.service.DatasetReloadService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Dataset administration on the management port, which only listens on 127.0.0.1, rather than next
+ * to the public API: {@code GET /actuator/dataset} tells the generation served,
+ * {@code POST /actuator/dataset} reloads it.
+ */
+@Slf4j
+@Component
+@WebEndpoint(id = "dataset")
+public class DatasetEndpoint {
+    private final DatasetReloadService reloadService;
+
+    public DatasetEndpoint(DatasetReloadService reloadService) {
+        this.reloadService = reloadService;
+    }
+
+    @ReadOperation
+    public Map<String, String> generation() {
+        return Map.of("servedGeneration", String.valueOf(reloadService.servedGeneration()));
+    }
+
+    /**
+     * Reloads the dataset in the background and swaps it in once it is indexed; requests keep being
+     * answered from the current dataset meanwhile.
+     */
+    @WriteOperation
+    public WebEndpointResponse<Map<String, String>> reload() {
+        log.info("Received request : POST actuator/dataset");
+        reloadService.requestReload();
+        Map<String, String> response = Map.of(
+                "message", "Dataset reload started",
+                "servedGeneration", String.valueOf(reloadService.servedGeneration())
+        );
+        return new WebEndpointResponse<>(response, HttpStatus.ACCEPTED.value());
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.safetynetalerts.controller;
 
 import com.example.safetynetalerts.api.PersonCreateRequest;
+import com.example.safetynetalerts.api.PersonImportResponse;
 import com.example.safetynetalerts.api.PersonResponse;
+import com.example.safetynetalerts.service.PersonImportService;
 import com.example.safetynetalerts.service.PersonService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,6 +14,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -22,15 +26,21 @@ import java.util.Map;
 public class PersonController {
 
     private final PersonService personService;
+    private final PersonImportService personImportService;
 
-    public PersonController(PersonService service) {
+    public PersonController(PersonService service, PersonImportService personImportService) {
         this.personService = service;
+        this.personImportService = personImportService;
     }
 
     @Operation(summary = "Add a new person with unique firstName and lastName",
+            description = "Names are compared ignoring case, like every person lookup: \"john boyd\" conflicts with "
+                    + "an existing \"John Boyd\", which update and delete would not be able to tell apart.",
             responses = { @ApiResponse(responseCode = "200", description = "Success"),
                     @ApiResponse(responseCode = "400", description = "Bad Request"),
-                    @ApiResponse(responseCode = "500", description = "Server error")})
+                    @ApiResponse(responseCode = "409", description = "A person has the same name, ignoring case"),
+                    @ApiResponse(responseCode = "500", description = "Server error"),
+                    @ApiResponse(responseCode = "503", description = "The journal cannot save changes")})
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> create(@Valid @RequestBody PersonCreateRequest body) {
@@ -47,10 +57,24 @@ public class PersonController {
 
     }
 
+    @Operation(summary = "Add many persons from a streamed NDJSON body or JSON array",
+            description = "Each record is validated like POST /person; the response lists the rejected records by line",
+            responses = { @ApiResponse(responseCode = "200", description = "Success"),
+                    @ApiResponse(responseCode = "500", description = "Server error"),
+                    @ApiResponse(responseCode = "503", description = "The journal cannot save changes")})
+    @PostMapping(value = "/bulk",
+            consumes = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE },
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PersonImportResponse> importPersons(InputStream body) throws IOException {
+        // the raw stream is parsed record by record, the body is never held in memory
+        return ResponseEntity.ok(personImportService.importPersons(body));
+    }
+
     @Operation(summary = "Delete a person with unique firstName and lastName",
             responses = { @ApiResponse(responseCode = "200", description = "Success"),
                     @ApiResponse(responseCode = "400", description = "Bad Request"),
-                    @ApiResponse(responseCode = "500", description = "Server error")})
+                    @ApiResponse(responseCode = "500", description = "Server error"),
+                    @ApiResponse(responseCode = "503", description = "The journal cannot save changes")})
     @DeleteMapping()
     public ResponseEntity<?> deletePerson(
             @RequestParam String firstName,
@@ -72,7 +96,8 @@ public class PersonController {
             description = "firstName and lastName cannot be change, but other fields can",
             responses = { @ApiResponse(responseCode = "200", description = "Success"),
                     @ApiResponse(responseCode = "400", description = "Bad Request"),
-                    @ApiResponse(responseCode = "500", description = "Server error")})
+                    @ApiResponse(responseCode = "500", description = "Server error"),
+                    @ApiResponse(responseCode = "503", description = "The journal cannot save changes")})
     @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> updatePerson(@RequestParam String firstName,
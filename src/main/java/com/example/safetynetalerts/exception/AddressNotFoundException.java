@@ -0,0 +1,20 @@
+package com.example.safetynetalerts.exception;
+
+import java.util.List;
+
+/**
+ * Nobody lives at the address, not even once it is canonicalized. Carries the inhabited addresses
+ * that resemble it, most similar first, so the caller can retry with one of them.
+ */
+public class AddressNotFoundException extends IllegalArgumentException {
+    private final List<String> candidates;
+
+    public AddressNotFoundException(String address, List<String> candidates) {
+        super("Address " + address + " is not found in database");
+        this.candidates = List.copyOf(candidates);
+    }
+
+    public List<String> getCandidates() {
+        return candidates;
+    }
+}
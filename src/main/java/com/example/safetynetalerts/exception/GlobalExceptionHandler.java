@@ -1,5 +1,6 @@
 package com.example.safetynetalerts.exception;
 
+import com.example.safetynetalerts.repository.journal.JournalException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +24,13 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    @ExceptionHandler(JournalException.class)
+    public ResponseEntity<Map<String, String>> handleJournalException(JournalException e) {
+        Map<String, String> response = Map.of("message", "Changes cannot be saved at the moment: " + e.getMessage());
+        log.error("Journal failure: {}", e.getMessage(), e.getCause());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGenericException(Exception e) {
         Map<String, String> response = Map.of("message", "An unexpected error occurred: " + e.getMessage());
@@ -0,0 +1,222 @@
+package com.example.safetynetalerts.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inhabited addresses by canonical form, and a trigram index over those forms for near matches.
+ * <p>
+ * The canonical form ignores case, punctuation and spacing and abbreviates street suffixes and
+ * directions, so "1509 Culver Street" and "1509 culver st." read the same. A query that has no
+ * canonical match is answered from the trigram postings: the addresses sharing the most trigrams
+ * with it are picked, then ranked by Dice similarity over their full trigram sets. Trigrams shared
+ * by more than {@value #MAX_POSTINGS} addresses (the common suffixes, " st" and the like) select
+ * nothing, so they are not kept and a query reads a bounded number of postings whatever the
+ * dataset size.
+ * <p>
+ * Like the other indexes of {@link Dataset}, values are immutable and replaced copy-on-write under
+ * the repository write lock. A trigram that outgrows the limit stays dropped until the next reload.
+ */
+final class AddressIndex {
+    static final int MAX_POSTINGS = 512;
+    private static final int MAX_RESCORED = 64;
+    private static final double MIN_SIMILARITY = 0.4;
+    // marks a trigram too common to select candidates
+    private static final String[] DROPPED = new String[0];
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Map<String, String> ABBREVIATIONS = Map.ofEntries(
+            Map.entry("street", "st"), Map.entry("str", "st"), Map.entry("avenue", "ave"), Map.entry("av", "ave"),
+            Map.entry("road", "rd"), Map.entry("drive", "dr"), Map.entry("boulevard", "blvd"),
+            Map.entry("lane", "ln"), Map.entry("court", "ct"), Map.entry("place", "pl"),
+            Map.entry("circle", "cir"), Map.entry("parkway", "pkwy"), Map.entry("highway", "hwy"),
+            Map.entry("terrace", "ter"), Map.entry("square", "sq"), Map.entry("trail", "trl"),
+            Map.entry("north", "n"), Map.entry("south", "s"), Map.entry("east", "e"), Map.entry("west", "w"),
+            Map.entry("apartment", "apt"), Map.entry("suite", "ste"));
+
+    // canonical form -> normalized address keys having it, usually one
+    private final Map<String, List<String>> keysByCanonical = new ConcurrentHashMap<>();
+    // trigram -> canonical forms containing it, DROPPED beyond MAX_POSTINGS
+    private final Map<String, String[]> postings = new ConcurrentHashMap<>();
+
+    static AddressIndex of(Collection<String> addressKeys) {
+        AddressIndex index = new AddressIndex();
+        index.addAll(addressKeys);
+        return index;
+    }
+
+    /**
+     * @return lower case words separated by single spaces, suffixes and directions abbreviated
+     */
+    static String canonical(String address) {
+        if (address == null) {
+            return "";
+        }
+        StringBuilder canonical = new StringBuilder(address.length());
+        for (String word : SEPARATORS.split(address.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                if (!canonical.isEmpty()) {
+                    canonical.append(' ');
+                }
+                canonical.append(ABBREVIATIONS.getOrDefault(word, word));
+            }
+        }
+        return canonical.toString();
+    }
+
+    /**
+     * @return the normalized address keys reading the same as the address once canonicalized
+     */
+    List<String> keys(String address) {
+        return keysByCanonical.getOrDefault(canonical(address), List.of());
+    }
+
+    /**
+     * @return up to {@code limit} canonical forms resembling the address, most similar first
+     */
+    List<String> similar(String address, int limit) {
+        String query = canonical(address);
+        long[] queryGrams = packedTrigrams(query);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : trigrams(query)) {
+            for (String candidate : postings.getOrDefault(gram, DROPPED)) {
+                shared.merge(candidate, 1, Integer::sum);
+            }
+        }
+        record Scored(String canonical, double similarity) {
+        }
+        return shared.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(MAX_RESCORED)
+                .map(e -> {
+                    // all trigrams count here, the dropped ones included
+                    long[] grams = packedTrigrams(e.getKey());
+                    return new Scored(e.getKey(),
+                            2.0 * common(queryGrams, grams) / (queryGrams.length + grams.length));
+                })
+                .filter(s -> s.similarity() >= MIN_SIMILARITY)
+                .sorted(Comparator.comparingDouble(Scored::similarity).reversed()
+                        .thenComparing(Scored::canonical))
+                .limit(limit)
+                .map(Scored::canonical)
+                .toList();
+    }
+
+    // --- MUTATIONS (callers hold the repository write lock) -----
+
+    void addAll(Collection<String> addressKeys) {
+        Map<String, List<String>> added = new HashMap<>();
+        for (String key : addressKeys) {
+            String canonical = canonical(key);
+            // the normalized key often already is the canonical form
+            String form = canonical.equals(key) ? key : canonical;
+            List<String> keys = keysByCanonical.get(form);
+            if (keys == null) {
+                keysByCanonical.put(form, List.of(key));
+                for (String gram : trigrams(form)) {
+                    added.computeIfAbsent(gram, g -> new ArrayList<>()).add(form);
+                }
+            } else if (!keys.contains(key)) {
+                List<String> copy = new ArrayList<>(keys);
+                copy.add(key);
+                keysByCanonical.put(form, List.copyOf(copy));
+            }
+        }
+        added.forEach((gram, forms) -> postings.compute(gram, (g, posting) -> appended(posting, forms)));
+    }
+
+    void remove(String addressKey) {
+        String form = canonical(addressKey);
+        List<String> keys = keysByCanonical.get(form);
+        if (keys == null || !keys.contains(addressKey)) {
+            return;
+        }
+        if (keys.size() > 1) {
+            List<String> copy = new ArrayList<>(keys);
+            copy.remove(addressKey);
+            keysByCanonical.put(form, List.copyOf(copy));
+            return;
+        }
+        keysByCanonical.remove(form);
+        for (String gram : trigrams(form)) {
+            postings.computeIfPresent(gram, (g, posting) -> {
+                if (posting == DROPPED) {
+                    return DROPPED;
+                }
+                String[] remaining = Arrays.stream(posting).filter(f -> !f.equals(form)).toArray(String[]::new);
+                return remaining.length == 0 ? null : remaining;
+            });
+        }
+    }
+
+    private static String[] appended(String[] posting, List<String> forms) {
+        int size = posting == null ? 0 : posting.length;
+        if (posting == DROPPED || size + forms.size() > MAX_POSTINGS) {
+            return DROPPED;
+        }
+        String[] copy = posting == null ? new String[forms.size()] : Arrays.copyOf(posting, size + forms.size());
+        for (int i = 0; i < forms.size(); i++) {
+            copy[size + i] = forms.get(i);
+        }
+        return copy;
+    }
+
+    // padded so that the first and last characters weigh as much as the inner ones
+    static Set<String> trigrams(String canonical) {
+        String padded = pad(canonical);
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // the same trigrams, three chars packed in a long, sorted and distinct, for scoring without allocating strings
+    private static long[] packedTrigrams(String canonical) {
+        String padded = pad(canonical);
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private static int common(long[] a, long[] b) {
+        int common = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return common;
+    }
+
+    private static String pad(String canonical) {
+        return "  " + canonical + " ";
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.safetynetalerts.repository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable sorted set of distinct non blank strings, each with the number of entries sharing it,
+ * so that removing one entry only drops the value once nobody else uses it. Updates return a new
+ * instance; the sorted list view is ready to be served as is.
+ */
+final class CountedValues {
+    static final CountedValues NONE = new CountedValues(new String[0], new int[0]);
+
+    private final String[] values;
+    private final int[] counts;
+    private final List<String> list;
+
+    private CountedValues(String[] values, int[] counts) {
+        this(values, counts, List.of(values));
+    }
+
+    private CountedValues(String[] values, int[] counts, List<String> list) {
+        this.values = values;
+        this.counts = counts;
+        this.list = list;
+    }
+
+    static CountedValues of(Collection<String> entries) {
+        String[] all = new String[entries.size()];
+        int n = 0;
+        for (String value : entries) {
+            if (value != null && !value.isBlank()) {
+                all[n++] = value;
+            }
+        }
+        Arrays.sort(all, 0, n);
+        String[] values = new String[n];
+        int[] counts = new int[n];
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct > 0 && values[distinct - 1].equals(all[i])) {
+                counts[distinct - 1]++;
+            } else {
+                values[distinct] = all[i];
+                counts[distinct++] = 1;
+            }
+        }
+        return new CountedValues(Arrays.copyOf(values, distinct), Arrays.copyOf(counts, distinct));
+    }
+
+    List<String> list() {
+        return list;
+    }
+
+    boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    /**
+     * Adds a batch of entries in one merge pass instead of one array copy per entry.
+     */
+    CountedValues withAll(Collection<String> entries) {
+        CountedValues added = of(entries);
+        if (added.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return added;
+        }
+        String[] nextValues = new String[values.length + added.values.length];
+        int[] nextCounts = new int[nextValues.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < values.length || j < added.values.length) {
+            int cmp = i == values.length ? 1 : j == added.values.length ? -1 : values[i].compareTo(added.values[j]);
+            if (cmp < 0) {
+                nextValues[n] = values[i];
+                nextCounts[n++] = counts[i++];
+            } else if (cmp > 0) {
+                nextValues[n] = added.values[j];
+                nextCounts[n++] = added.counts[j++];
+            } else {
+                nextValues[n] = values[i];
+                nextCounts[n++] = counts[i++] + added.counts[j++];
+            }
+        }
+        if (n == values.length) {
+            // no new value, the list view can be shared
+            return new CountedValues(values, nextCounts, list);
+        }
+        return new CountedValues(Arrays.copyOf(nextValues, n), Arrays.copyOf(nextCounts, n));
+    }
+
+    CountedValues without(String value) {
+        if (value == null || value.isBlank()) {
+            return this;
+        }
+        int at = Arrays.binarySearch(values, value);
+        if (at < 0) {
+            return this;
+        }
+        if (counts[at] > 1) {
+            int[] nextCounts = counts.clone();
+            nextCounts[at]--;
+            return new CountedValues(values, nextCounts, list);
+        }
+        String[] nextValues = new String[values.length - 1];
+        int[] nextCounts = new int[counts.length - 1];
+        System.arraycopy(values, 0, nextValues, 0, at);
+        System.arraycopy(counts, 0, nextCounts, 0, at);
+        System.arraycopy(values, at + 1, nextValues, at, values.length - at - 1);
+        System.arraycopy(counts, at + 1, nextCounts, at, counts.length - at - 1);
+        return new CountedValues(nextValues, nextCounts);
+    }
+}
@@ -1,67 +1,458 @@
 package com.example.safetynetalerts.repository;
 
-import com.example.safetynetalerts.model.DataRoot;
+import com.example.safetynetalerts.config.DataProperties;
 import com.example.safetynetalerts.model.Firestation;
 import com.example.safetynetalerts.model.MedicalRecord;
 import com.example.safetynetalerts.model.Person;
+import com.example.safetynetalerts.repository.journal.JournalEntry;
+import com.example.safetynetalerts.repository.journal.JournalException;
+import com.example.safetynetalerts.repository.journal.MutationJournal;
+import com.example.safetynetalerts.repository.loader.StreamingDataLoader;
+import com.example.safetynetalerts.repository.snapshot.BinarySnapshot;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
-import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.Collections;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
-
+/**
+ * In-memory store of the dataset.
+ * <p>
+ * The data lives in a {@link Dataset} generation held in a volatile field. Reads never lock
+ * (see {@link Dataset}); taking {@link #current()} once keeps several lookups on the same generation
+ * across a reload. Person mutations are applied to the live generation in place, one index after
+ * the other, so each lookup sees a complete index bucket but two lookups, or one that reads several
+ * indexes, may see a mutation in one and not yet in the other. Writers are serialized by a single
+ * {@link ReentrantLock}, which keeps the uniqueness check and the insert atomic.
+ * <p>
+ * Every mutation is appended to the {@link MutationJournal} under the write lock, so the journal
+ * order is the apply order, applied in memory once the journal accepted it, and acknowledged once
+ * the journal reports it durable. When a write fails the journal rejects every later append and
+ * the served generation is rebuilt from the journal, so nothing that is lost on restart stays
+ * visible.
+ * <p>
+ * {@link #reload()} re-reads the base data and the journal into a new generation without holding
+ * the lock, re-applies the mutations that happened meanwhile and swaps the generation in. With the
+ * journal disabled the mutations applied since the base data was read are kept in memory instead,
+ * and a reload re-applies all of them, so it never drops an acknowledged write; they are released
+ * once exported to the boot snapshot.
+ */
+@Slf4j
 @Repository
-@Getter
 public class DataRepository {
     private final ResourceLoader resourceLoader;
-    private final ObjectMapper mapper;
+    private final String dataLocation;
+    private final Path snapshot;
+    private final boolean dedupeStrings;
+    private final boolean offHeapMedicalPayloads;
+    private final StreamingDataLoader loader;
+    private final MutationJournal journal;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicLong generations = new AtomicLong();
 
+    private volatile Dataset current = Dataset.empty();
 
-    private List<Person> persons = Collections.emptyList();
-    private List<MedicalRecord> medicalrecords = Collections.emptyList();
-    private List<Firestation> firestations = Collections.emptyList();
+    // guarded by writeLock
+    private CompletableFuture<Void> lastAppend = CompletableFuture.completedFuture(null);
+    // guarded by writeLock, non null while a reload is building the next generation
+    private List<JournalEntry> reloadTail;
+    // guarded by writeLock, set once the generation was rebuilt after a journal failure
+    private boolean rolledBack;
+    // guarded by writeLock, the mutations the base data misses when the journal is disabled, else null
+    private final List<JournalEntry> unjournaled;
 
     public DataRepository(ResourceLoader resourceLoader) {
+        this(resourceLoader, MutationJournal.DISABLED);
+    }
+
+    public DataRepository(ResourceLoader resourceLoader, MutationJournal journal) {
+        this(resourceLoader, journal, new DataProperties("classpath:data.json", null, false, true, false));
+    }
+
+    @Autowired
+    public DataRepository(ResourceLoader resourceLoader, MutationJournal journal, DataProperties dataProperties) {
         this.resourceLoader = resourceLoader;
-        this.mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.journal = journal;
+        this.unjournaled = journal == MutationJournal.DISABLED ? new ArrayList<>() : null;
+        this.dataLocation = dataProperties.location();
+        this.snapshot = dataProperties.snapshot();
+        this.dedupeStrings = dataProperties.dedupeStrings();
+        this.offHeapMedicalPayloads = dataProperties.offHeapMedicalPayloads();
+        this.loader = new StreamingDataLoader(
+                new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
     }
 
     @PostConstruct
     void load() {
+        Dataset base = readBase();
+        writeLock.lock();
+        try {
+            current = base;
+        } finally {
+            writeLock.unlock();
+        }
+        replayJournal();
+    }
+
+    /**
+     * Re-applies the mutations journaled by previous runs on top of the base dataset.
+     */
+    void replayJournal() {
+        writeLock.lock();
+        try {
+            journal.replay(current::apply);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Builds a new generation from the base data plus the journal and swaps it in.
+     * Readers and writers are not blocked while the new generation is built.
+     * @return the generation now being served
+     */
+    public long reload() {
+        CompletableFuture<Void> barrier;
+        boolean failedBefore;
+        writeLock.lock();
         try {
-            Resource resource = resourceLoader.getResource("classpath:data.json");
-            try (InputStream is = resource.getInputStream()) {
-                DataRoot root = mapper.readValue(is, DataRoot.class);
-                this.persons = root.getPersons();
-                this.firestations = root.getFirestations();
-                this.medicalrecords = root.getMedicalrecords();
+            if (reloadTail != null) {
+                throw new IllegalStateException("A reload is already in progress");
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Error loading data json file", e);
+            reloadTail = new ArrayList<>();
+            barrier = lastAppend;
+            failedBefore = rolledBack;
+        } finally {
+            writeLock.unlock();
         }
+        try {
+            long start = System.nanoTime();
+            Dataset next = readBase();
+            // everything appended before the tail started is in the file once the barrier completes
+            barrier.exceptionally(e -> null).join();
+            journal.scan(next::apply);
+            writeLock.lock();
+            try {
+                if (rolledBack && !failedBefore) {
+                    // the tail holds mutations the journal lost, the rolled back generation is right
+                    throw new IllegalStateException("The journal failed during the reload");
+                }
+                // the journal scan covered the mutations before the tail, unless there is no journal
+                (unjournaled != null ? unjournaled : reloadTail).forEach(next::apply);
+                current = next;
+            } finally {
+                writeLock.unlock();
+            }
+            log.info("Reloaded dataset generation {} in {} ms", next.getGeneration(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return next.getGeneration();
+        } finally {
+            writeLock.lock();
+            try {
+                reloadTail = null;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private Dataset readBase() {
+        DatasetBuilder builder = new DatasetBuilder(StringDictionary.create(dedupeStrings), offHeapMedicalPayloads);
+        if (snapshot != null && Files.isRegularFile(snapshot)) {
+            long start = System.nanoTime();
+            try {
+                BinarySnapshot.read(snapshot, builder);
+            } catch (Exception e) {
+                throw new RuntimeException("Error loading data snapshot " + snapshot, e);
+            }
+            long decoded = System.nanoTime();
+            // the snapshot holds the records grouped by household, the indexes are still built here
+            Dataset dataset = builder.build(generations.incrementAndGet());
+            long built = System.nanoTime();
+            log.info("Loaded snapshot {} in {} ms: {} ms decoding, {} ms building the indexes", snapshot,
+                    (built - start) / 1_000_000, (decoded - start) / 1_000_000, (built - decoded) / 1_000_000);
+            return dataset;
+        } else {
+            try {
+                Resource resource = resourceLoader.getResource(dataLocation);
+                try (InputStream is = resource.getInputStream()) {
+                    loader.read(is, builder);
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Error loading data json file", e);
+            }
+        }
+        return builder.build(generations.incrementAndGet());
+    }
+
+    /**
+     * Writes a point-in-time binary snapshot of the current records, persons grouped by household.
+     * Writers wait until the snapshot is complete.
+     * <p>
+     * When the target is the snapshot the repository boots from, the journal is checkpointed:
+     * its entries are in the snapshot now, so the next startup or reload no longer replays them.
+     * A crash between the two steps only makes the next startup replay entries the snapshot already
+     * holds, which is harmless.
+     */
+    public void exportSnapshot(Path target) throws IOException {
+        writeLock.lock();
+        try {
+            try {
+                // everything visible has to be durable before it may leave the journal
+                lastAppend.join();
+            } catch (CompletionException e) {
+                throw new JournalException("Mutation could not be written to the journal", e.getCause());
+            }
+            Dataset data = current;
+            BinarySnapshot.write(target, data.households(), data.getFirestations(), data.getMedicalrecords());
+            if (snapshot != null && Files.isRegularFile(snapshot) && Files.isSameFile(target, snapshot)) {
+                journal.checkpoint();
+                if (unjournaled != null) {
+                    unjournaled.clear();
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole dataset and rebuilds every index from it.
+     */
+    void replaceData(List<Person> persons, List<Firestation> firestations, List<MedicalRecord> medicalrecords) {
+        DatasetBuilder builder = new DatasetBuilder(StringDictionary.create(dedupeStrings), offHeapMedicalPayloads);
+        orEmpty(persons).forEach(builder::person);
+        orEmpty(firestations).forEach(builder::firestation);
+        orEmpty(medicalrecords).forEach(builder::medicalRecord);
+        Dataset next = builder.build(generations.incrementAndGet());
+        writeLock.lock();
+        try {
+            current = next;
+            if (unjournaled != null) {
+                unjournaled.clear();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // --- READS --------------------------------------------------
+
+    /**
+     * @return the generation currently served; stays usable after a reload swapped it out, and
+     * from then on no longer changes. While it is served, person mutations land in it in place.
+     */
+    public Dataset current() {
+        return current;
+    }
+
+    public List<Person> getPersons() {
+        return current.getPersons();
+    }
+
+    public List<MedicalRecord> getMedicalrecords() {
+        return current.getMedicalrecords();
+    }
+
+    public List<Firestation> getFirestations() {
+        return current.getFirestations();
     }
+
+    public Optional<Person> findPerson(String firstName, String lastName) {
+        return current.findPerson(firstName, lastName);
+    }
+
     public List<Person> getPersonsByAddress(String address) {
-        return persons.stream().filter(p->p.getAddress().equalsIgnoreCase(address)).toList();
+        return current.getPersonsByAddress(address);
     }
 
     public List<Person> getPersonByStation(Integer stationNumber) {
-        List<String> addresses = firestations.stream().
-                filter(f -> f.getStation() == stationNumber).
-                map(Firestation::getAddress).toList();
-        return persons.stream().filter(p -> addresses.contains(p.getAddress())).toList();
+        return current.getPersonByStation(stationNumber);
     }
 
     public Optional<MedicalRecord> getMedicalRecord(String firstName, String lastName) {
-        return medicalrecords.stream().filter(mr-> mr.getFirstName().
-                equalsIgnoreCase(firstName) &&mr.getLastName().equalsIgnoreCase(lastName)).findFirst();
+        return current.getMedicalRecord(firstName, lastName);
+    }
+
+    // --- MUTATIONS ----------------------------------------------
+
+    /**
+     * Atomically inserts the person unless one with the same name (ignoring case) exists.
+     * @return false when the name is already taken
+     */
+    public boolean addPersonIfAbsent(Person person) {
+        CompletableFuture<Void> durable;
+        writeLock.lock();
+        try {
+            if (current.findPerson(person.getFirstName(), person.getLastName()).isPresent()) {
+                return false;
+            }
+            durable = record(JournalEntry.put(person));
+            current.insert(person);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(durable);
+        return true;
+    }
+
+    /**
+     * Batch form of {@link #addPersonIfAbsent(Person)}: the whole batch is inserted under one
+     * acquisition of the write lock, with one index update per touched bucket, and acknowledged once
+     * its journal entries are all durable, which usually takes a single group commit.
+     * @return for each person, whether it was inserted; false when the name was already taken,
+     * possibly by an earlier person of the same batch
+     */
+    public boolean[] addPersonsIfAbsent(List<Person> persons) {
+        boolean[] inserted;
+        List<CompletableFuture<Void>> appends = new ArrayList<>(persons.size());
+        JournalException rejected = null;
+        writeLock.lock();
+        try {
+            inserted = current.insertable(persons);
+            List<Person> accepted = new ArrayList<>(persons.size());
+            for (int i = 0; i < inserted.length; i++) {
+                if (inserted[i]) {
+                    try {
+                        appends.add(record(JournalEntry.put(persons.get(i))));
+                    } catch (JournalException e) {
+                        // the journal stopped mid-batch, the entries it accepted are applied like any other
+                        rejected = e;
+                        break;
+                    }
+                    accepted.add(persons.get(i));
+                }
+            }
+            current.insertAll(accepted);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)));
+        if (rejected != null) {
+            throw rejected;
+        }
+        return inserted;
+    }
+
+    /**
+     * Removes the person matching the name, ignoring case.
+     * @return true when a person was removed
+     */
+    public boolean removePerson(String firstName, String lastName) {
+        CompletableFuture<Void> durable;
+        writeLock.lock();
+        try {
+            Person existing = current.findPerson(firstName, lastName).orElse(null);
+            if (existing == null) {
+                return false;
+            }
+            durable = record(JournalEntry.delete(existing.getFirstName(), existing.getLastName()));
+            current.remove(firstName, lastName);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(durable);
+        return true;
+    }
+
+    /**
+     * Compare-and-set style replacement: publishes {@code replacement} only if {@code expected}
+     * is still the stored instance for that name.
+     * @return false when another writer got there first; the caller should re-read and retry
+     */
+    public boolean replacePerson(Person expected, Person replacement) {
+        CompletableFuture<Void> durable;
+        writeLock.lock();
+        try {
+            if (current.findPerson(expected.getFirstName(), expected.getLastName()).orElse(null) != expected) {
+                return false;
+            }
+            durable = record(JournalEntry.put(replacement));
+            current.replace(expected, replacement);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(durable);
+        return true;
+    }
+
+    // --- HELPERS ------------------------------------------------
+
+    /**
+     * Appends the entry; callers hold writeLock and apply the change only once this returned.
+     * @throws JournalException when the journal does not accept writes anymore
+     */
+    private CompletableFuture<Void> record(JournalEntry entry) {
+        CompletableFuture<Void> appended = journal.append(entry);
+        if (appended.isCompletedExceptionally()) {
+            throw new JournalException("The journal does not accept mutations", appended.exceptionNow());
+        }
+        if (reloadTail != null) {
+            reloadTail.add(entry);
+        }
+        if (unjournaled != null) {
+            unjournaled.add(entry);
+        }
+        lastAppend = appended;
+        return appended;
+    }
+
+    /**
+     * The change is already visible in memory; the caller is only acknowledged
+     * once the journal made it durable. Waiting happens outside the write lock
+     * so that concurrent writers end up in the same group commit.
+     */
+    private void awaitDurable(CompletableFuture<Void> durable) {
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            rollBackToJournal();
+            throw new JournalException("Mutation could not be written to the journal", e.getCause());
+        }
+    }
+
+    /**
+     * A journal write failed and the journal rejects every append from then on. The mutations applied
+     * since the last durable one are visible but would be lost on restart: rebuild the generation from
+     * the base data and the journal, which ends at the last durable entry.
+     */
+    private void rollBackToJournal() {
+        writeLock.lock();
+        try {
+            if (rolledBack) {
+                return;
+            }
+            rolledBack = true;
+            Dataset rebuilt = readBase();
+            journal.scan(rebuilt::apply);
+            current = rebuilt;
+            log.error("Journal failed, now serving generation {} rebuilt from it; mutations are rejected until restart",
+                    rebuilt.getGeneration());
+        } catch (RuntimeException e) {
+            log.error("Could not rebuild the dataset after the journal failure", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list == null ? List.of() : list;
     }
 
 }
@@ -0,0 +1,532 @@
+package com.example.safetynetalerts.repository;
+
+import com.example.safetynetalerts.model.Firestation;
+import com.example.safetynetalerts.model.MedicalRecord;
+import com.example.safetynetalerts.model.Person;
+import com.example.safetynetalerts.repository.journal.JournalEntry;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * One generation of the dataset with its indexes.
+ * <p>
+ * A reload builds a new generation and swaps it in, so a request that grabbed a {@code Dataset}
+ * keeps answering from it even if a reload completes meanwhile. Reads never lock: every index is a
+ * {@link ConcurrentHashMap} whose values are immutable and replaced copy-on-write, so a reader
+ * always sees a complete bucket. Persons are stored as {@link Resident}s, already joined with their
+ * medical record and parsed birthdate. Person mutations of the live generation are applied by
+ * {@link DataRepository} under its write lock, index by index: the guarantee is per bucket, a reader
+ * combining several indexes may observe a mutation half applied.
+ * <p>
+ * Station coverage does not change within a generation, so each covered address gets a dense int
+ * code when the generation is built. Stations list their addresses as code arrays and the covered
+ * households are also held in an array by code, which lets the multi station queries walk plain
+ * arrays and deduplicate addresses with a {@link BitSet} instead of hashing them. These codes are
+ * the internal layout of this, the only, storage engine: there is no alternative engine to select.
+ */
+public class Dataset {
+    private static final int[] NO_CODES = new int[0];
+
+    private final long generation;
+
+    // normalized (firstName, lastName) -> person, the primary store
+    private final Map<PersonKey, Person> personsByName;
+    // normalized address -> residents living there, joined with their medical record
+    private final Map<String, List<Resident>> residentsByAddress;
+    // canonical and near matches of the residentsByAddress keys
+    private final AddressIndex addressIndex;
+    // folded last name (the lastName part of PersonKey) -> residents with that surname
+    private final Map<String, List<Resident>> residentsByLastName;
+    // folded city -> distinct emails of the persons living there
+    private final Map<String, CountedValues> emailsByCity;
+    // normalized address -> its code, for the addresses covered by at least one station
+    private final Map<String, Integer> coveredAddressCodes;
+    // station -> codes of the addresses it covers (an address may be covered by several stations)
+    private final Map<Integer, int[]> addressesByStation;
+    // address code -> residents living there, the same lists as in residentsByAddress, null when none
+    private final AtomicReferenceArray<List<Resident>> coveredHouseholds;
+    // normalized address -> stations covering it, the reverse of addressesByStation
+    private final Map<String, List<Integer>> stationsByAddress;
+    // station -> residents of the addresses it covers, kept in step with residentsByAddress
+    private final Map<Integer, StationResidents> residentsByStation;
+    // normalized (firstName, lastName) -> medical record
+    private final Map<PersonKey, MedicalRecord> medicalRecordsByName;
+    private final List<Firestation> firestations;
+    // canonical copies of the shared field values, applied to persons inserted in this generation
+    private final StringDictionary dictionary;
+    // medication and allergy lists of the medical records, when they are kept off-heap
+    private final MedicalPayloadStore medicalPayloads;
+
+    // bumped by every mutation of this generation; the per station and per address maps record
+    // the version of the last change that touched them
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Integer, Long> stationVersions = new ConcurrentHashMap<>();
+    private final Map<String, Long> addressVersions = new ConcurrentHashMap<>();
+
+    Dataset(long generation, Map<PersonKey, Person> personsByName, Map<String, List<Person>> personsByAddress,
+            Map<Integer, Set<String>> addressesByStation, Map<PersonKey, MedicalRecord> medicalRecordsByName,
+            List<Firestation> firestations, StringDictionary dictionary, MedicalPayloadStore medicalPayloads) {
+        this.generation = generation;
+        this.dictionary = dictionary;
+        this.medicalPayloads = medicalPayloads;
+        this.personsByName = new ConcurrentHashMap<>(personsByName);
+        this.medicalRecordsByName = new ConcurrentHashMap<>(medicalRecordsByName);
+        this.residentsByAddress = new ConcurrentHashMap<>(personsByAddress.size());
+        Map<String, List<Resident>> byLastName = new HashMap<>();
+        personsByAddress.forEach((address, household) -> {
+            List<Resident> residents = new ArrayList<>(household.size());
+            for (Person p : household) {
+                Resident resident = join(p);
+                residents.add(resident);
+                byLastName.computeIfAbsent(PersonKey.fold(p.getLastName()), n -> new ArrayList<>()).add(resident);
+            }
+            this.residentsByAddress.put(address, Collections.unmodifiableList(residents));
+        });
+        this.addressIndex = AddressIndex.of(this.residentsByAddress.keySet());
+        Map<String, List<String>> emails = new HashMap<>();
+        personsByName.values().forEach(p ->
+                emails.computeIfAbsent(PersonKey.fold(p.getCity()), c -> new ArrayList<>()).add(p.getEmail()));
+        this.emailsByCity = new ConcurrentHashMap<>(emails.size());
+        emails.forEach((city, values) -> this.emailsByCity.put(city, CountedValues.of(values)));
+        this.residentsByLastName = new ConcurrentHashMap<>(byLastName.size());
+        byLastName.forEach((lastName, residents) ->
+                this.residentsByLastName.put(lastName, Collections.unmodifiableList(residents)));
+        Map<String, Integer> codes = new HashMap<>();
+        Map<Integer, int[]> coverage = new HashMap<>(addressesByStation.size());
+        this.residentsByStation = new ConcurrentHashMap<>(addressesByStation.size());
+        Map<String, List<Integer>> stations = new HashMap<>();
+        addressesByStation.forEach((station, addresses) -> {
+            int[] stationCodes = new int[addresses.size()];
+            int n = 0;
+            List<Resident> covered = new ArrayList<>();
+            for (String address : addresses) {
+                stationCodes[n++] = codes.computeIfAbsent(address, a -> codes.size());
+                covered.addAll(residentsByAddress.getOrDefault(address, List.of()));
+                stations.computeIfAbsent(address, a -> new ArrayList<>(1)).add(station);
+            }
+            coverage.put(station, stationCodes);
+            this.residentsByStation.put(station, StationResidents.of(covered));
+        });
+        this.coveredAddressCodes = Map.copyOf(codes);
+        this.addressesByStation = Map.copyOf(coverage);
+        this.coveredHouseholds = new AtomicReferenceArray<>(codes.size());
+        codes.forEach((address, code) -> this.coveredHouseholds.set(code, this.residentsByAddress.get(address)));
+        stations.replaceAll((address, covering) -> List.copyOf(covering));
+        this.stationsByAddress = Map.copyOf(stations);
+        this.firestations = List.copyOf(firestations);
+    }
+
+    static Dataset empty() {
+        return new Dataset(0, Map.of(), Map.of(), Map.of(), Map.of(), List.of(), StringDictionary.DISABLED,
+                MedicalPayloadStore.NONE);
+    }
+
+    /**
+     * @return distinct strings held by the dictionary of this generation
+     */
+    public int dictionarySize() {
+        return dictionary.stringCount();
+    }
+
+    /**
+     * @return bytes of medication and allergy lists held off-heap, 0 when they are on the heap
+     */
+    public int medicalPayloadBytes() {
+        return medicalPayloads.size();
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Data versions only grow within a generation, so a (generation, version) pair identifies the
+     * state of what it covers. A version is bumped after the change it stands for is visible.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public long getStationVersion(int stationNumber) {
+        return stationVersions.getOrDefault(stationNumber, 0L);
+    }
+
+    public long getAddressVersion(String address) {
+        return addressVersions.getOrDefault(PersonKey.fold(address), 0L);
+    }
+
+    // --- SIZES (cheap, for metrics) -----------------------------
+
+    public int personCount() {
+        return personsByName.size();
+    }
+
+    public int medicalRecordCount() {
+        return medicalRecordsByName.size();
+    }
+
+    public int firestationCount() {
+        return firestations.size();
+    }
+
+    public int addressCount() {
+        return residentsByAddress.size();
+    }
+
+    public int stationCount() {
+        return residentsByStation.size();
+    }
+
+    public int lastNameCount() {
+        return residentsByLastName.size();
+    }
+
+    public int cityCount() {
+        return emailsByCity.size();
+    }
+
+    // --- READS --------------------------------------------------
+
+    /**
+     * @return a point-in-time, unmodifiable copy of all persons
+     */
+    public List<Person> getPersons() {
+        return List.copyOf(personsByName.values());
+    }
+
+    /**
+     * @return a point-in-time, unmodifiable copy of all medical records
+     */
+    public List<MedicalRecord> getMedicalrecords() {
+        return List.copyOf(medicalRecordsByName.values());
+    }
+
+    public List<Firestation> getFirestations() {
+        return firestations;
+    }
+
+    public Optional<Person> findPerson(String firstName, String lastName) {
+        return Optional.ofNullable(personsByName.get(PersonKey.of(firstName, lastName)));
+    }
+
+    public List<Person> getPersonsByAddress(String address) {
+        return persons(getResidentsByAddress(address));
+    }
+
+    public List<Person> getPersonByStation(int stationNumber) {
+        return persons(getResidentsByStation(stationNumber));
+    }
+
+    public List<Resident> getResidentsByAddress(String address) {
+        return residentsByAddress.getOrDefault(PersonKey.fold(address), List.of());
+    }
+
+    public List<Resident> getResidentsByStation(int stationNumber) {
+        return getStation(stationNumber).residents();
+    }
+
+    /**
+     * @return the materialized residents of the station, empty for an unknown station
+     */
+    public StationResidents getStation(int stationNumber) {
+        return residentsByStation.getOrDefault(stationNumber, StationResidents.EMPTY);
+    }
+
+    /**
+     * Residents of every address reading the same once canonicalized (see {@link AddressIndex}),
+     * e.g. "1509 Culver Street" for "1509 Culver St".
+     */
+    public List<Resident> getResidentsByCanonicalAddress(String address) {
+        List<String> keys = addressIndex.keys(address);
+        if (keys.size() == 1) {
+            return residentsByAddress.getOrDefault(keys.get(0), List.of());
+        }
+        List<Resident> residents = new ArrayList<>();
+        keys.forEach(key -> residents.addAll(residentsByAddress.getOrDefault(key, List.of())));
+        return Collections.unmodifiableList(residents);
+    }
+
+    /**
+     * @return up to {@code limit} inhabited addresses resembling the given one, most similar first,
+     * as written by their residents
+     */
+    public List<String> suggestAddresses(String address, int limit) {
+        List<String> suggestions = new ArrayList<>(limit);
+        for (String canonical : addressIndex.similar(address, limit)) {
+            for (String key : addressIndex.keys(canonical)) {
+                List<Resident> residents = residentsByAddress.get(key);
+                if (residents != null) {
+                    suggestions.add(residents.get(0).person().getAddress());
+                    break;
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * @return everyone with that last name, ignoring case
+     */
+    public List<Resident> getResidentsByLastName(String lastName) {
+        return residentsByLastName.getOrDefault(PersonKey.fold(lastName), List.of());
+    }
+
+    /**
+     * @return the distinct emails of the persons living in the city, ignoring case of the city, sorted
+     */
+    public List<String> getEmailsByCity(String city) {
+        CountedValues emails = emailsByCity.get(PersonKey.fold(city));
+        return emails == null ? List.of() : emails.list();
+    }
+
+    /**
+     * @return the stations covering the address, empty when none does
+     */
+    public List<Integer> getStationsByAddress(String address) {
+        return stationsByAddress.getOrDefault(PersonKey.fold(address), List.of());
+    }
+
+    /**
+     * Households covered by any of the stations, each address once even when several of the
+     * stations cover it, in one pass over the stations' address codes.
+     * @return the residents of each inhabited address, in station order
+     */
+    public List<List<Resident>> getHouseholdsByStations(Collection<Integer> stationNumbers) {
+        BitSet seen = new BitSet(coveredHouseholds.length());
+        List<List<Resident>> households = new ArrayList<>();
+        for (Integer station : stationNumbers) {
+            for (int code : addressesByStation.getOrDefault(station, NO_CODES)) {
+                if (!seen.get(code)) {
+                    seen.set(code);
+                    List<Resident> residents = coveredHouseholds.get(code);
+                    if (residents != null) {
+                        households.add(residents);
+                    }
+                }
+            }
+        }
+        return households;
+    }
+
+    public Optional<MedicalRecord> getMedicalRecord(String firstName, String lastName) {
+        return Optional.ofNullable(medicalRecordsByName.get(PersonKey.of(firstName, lastName)));
+    }
+
+    Map<String, List<Person>> households() {
+        Map<String, List<Person>> households = new HashMap<>(residentsByAddress.size());
+        residentsByAddress.forEach((address, residents) -> households.put(address, persons(residents)));
+        return households;
+    }
+
+    // --- MUTATIONS (callers hold the repository write lock) -----
+
+    boolean insert(Person person) {
+        canonicalize(person);
+        if (personsByName.putIfAbsent(PersonKey.of(person.getFirstName(), person.getLastName()), person) != null) {
+            return false;
+        }
+        index(person);
+        return true;
+    }
+
+    /**
+     * @return for each person, whether {@link #insertAll(List)} would insert it: its name (ignoring
+     * case) is neither stored nor taken by an earlier person of the batch
+     */
+    boolean[] insertable(List<Person> persons) {
+        boolean[] insertable = new boolean[persons.size()];
+        Set<PersonKey> names = new HashSet<>();
+        for (int i = 0; i < insertable.length; i++) {
+            PersonKey key = PersonKey.of(persons.get(i).getFirstName(), persons.get(i).getLastName());
+            insertable[i] = !personsByName.containsKey(key) && names.add(key);
+        }
+        return insertable;
+    }
+
+    /**
+     * Inserts every person whose name (ignoring case) is not taken yet, the earlier ones in the batch
+     * included, then updates each affected index bucket once for the whole batch.
+     * @return for each person, whether it was inserted
+     */
+    boolean[] insertAll(List<Person> persons) {
+        boolean[] inserted = new boolean[persons.size()];
+        List<Person> accepted = new ArrayList<>(persons.size());
+        for (int i = 0; i < inserted.length; i++) {
+            Person person = persons.get(i);
+            canonicalize(person);
+            if (personsByName.putIfAbsent(PersonKey.of(person.getFirstName(), person.getLastName()), person) == null) {
+                inserted[i] = true;
+                accepted.add(person);
+            }
+        }
+        indexAll(accepted);
+        return inserted;
+    }
+
+    Person remove(String firstName, String lastName) {
+        Person removed = personsByName.remove(PersonKey.of(firstName, lastName));
+        if (removed != null) {
+            unindex(removed);
+        }
+        return removed;
+    }
+
+    boolean replace(Person expected, Person replacement) {
+        PersonKey key = PersonKey.of(expected.getFirstName(), expected.getLastName());
+        if (personsByName.get(key) != expected) {
+            return false;
+        }
+        canonicalize(replacement);
+        personsByName.put(key, replacement);
+        unindex(expected);
+        index(replacement);
+        return true;
+    }
+
+    /**
+     * Applies a journaled mutation. Entries carry full state, so applying one twice is harmless.
+     * A PUT stores a copy of the entry's person: during a reload the entry is replayed into the next
+     * generation while the one still served holds the same instance.
+     */
+    void apply(JournalEntry entry) {
+        Person person = null;
+        if (entry.op() == JournalEntry.Op.PUT) {
+            person = copy(entry.person());
+            canonicalize(person);
+        }
+        PersonKey key = PersonKey.of(entry.firstName(), entry.lastName());
+        Person previous = person != null ? personsByName.put(key, person) : personsByName.remove(key);
+        if (previous != null) {
+            unindex(previous);
+        }
+        if (person != null) {
+            index(person);
+        }
+    }
+
+    private void index(Person person) {
+        indexAll(List.of(person));
+    }
+
+    // adds the persons to every secondary index, replacing each touched bucket once
+    private void indexAll(List<Person> persons) {
+        if (persons.isEmpty()) {
+            return;
+        }
+        Map<String, List<Resident>> byLastName = new HashMap<>();
+        Map<String, List<String>> emailsByCityAdded = new HashMap<>();
+        Map<String, List<Resident>> byAddress = new LinkedHashMap<>();
+        for (Person person : persons) {
+            Resident resident = join(person);
+            byLastName.computeIfAbsent(PersonKey.fold(person.getLastName()), n -> new ArrayList<>()).add(resident);
+            emailsByCityAdded.computeIfAbsent(PersonKey.fold(person.getCity()), c -> new ArrayList<>())
+                    .add(person.getEmail());
+            byAddress.computeIfAbsent(PersonKey.fold(person.getAddress()), a -> new ArrayList<>()).add(resident);
+        }
+        byLastName.forEach((name, added) -> residentsByLastName.compute(name, (n, residents) -> appended(residents, added)));
+        emailsByCityAdded.forEach((city, added) -> emailsByCity.compute(city,
+                (c, emails) -> (emails == null ? CountedValues.NONE : emails).withAll(added)));
+        Map<Integer, List<Resident>> byStation = new HashMap<>();
+        List<String> newAddresses = new ArrayList<>();
+        byAddress.forEach((address, added) -> {
+            if (!residentsByAddress.containsKey(address)) {
+                newAddresses.add(address);
+            }
+            householdChanged(address, residentsByAddress.compute(address, (a, household) -> appended(household, added)));
+            for (Integer station : stationsByAddress.getOrDefault(address, List.of())) {
+                byStation.computeIfAbsent(station, s -> new ArrayList<>()).addAll(added);
+            }
+        });
+        byStation.forEach((station, added) -> residentsByStation.compute(station,
+                (s, residents) -> residents.withAll(added)));
+        addressIndex.addAll(newAddresses);
+        bumpVersion(byAddress.keySet());
+    }
+
+    private void unindex(Person person) {
+        residentsByLastName.computeIfPresent(PersonKey.fold(person.getLastName()), (n, residents) -> {
+            List<Resident> copy = new ArrayList<>(residents);
+            copy.removeIf(r -> r.person() == person);
+            return copy.isEmpty() ? null : Collections.unmodifiableList(copy);
+        });
+        emailsByCity.computeIfPresent(PersonKey.fold(person.getCity()), (c, emails) -> {
+            CountedValues remaining = emails.without(person.getEmail());
+            return remaining.isEmpty() ? null : remaining;
+        });
+        String address = PersonKey.fold(person.getAddress());
+        householdChanged(address, residentsByAddress.computeIfPresent(address, (a, household) -> {
+            List<Resident> copy = new ArrayList<>(household);
+            copy.removeIf(r -> r.person() == person);
+            return copy.isEmpty() ? null : Collections.unmodifiableList(copy);
+        }));
+        for (Integer station : stationsByAddress.getOrDefault(address, List.of())) {
+            residentsByStation.compute(station, (s, residents) -> residents.without(person));
+        }
+        bumpVersion(List.of(address));
+    }
+
+    // mirrors a new residentsByAddress bucket into the covered households
+    private void householdChanged(String address, List<Resident> household) {
+        Integer code = coveredAddressCodes.get(address);
+        if (code != null) {
+            coveredHouseholds.set(code, household);
+        }
+        if (household == null) {
+            addressIndex.remove(address);
+        }
+    }
+
+    private void bumpVersion(Collection<String> addresses) {
+        long next = version.get() + 1;
+        for (String address : addresses) {
+            addressVersions.put(address, next);
+            for (Integer station : stationsByAddress.getOrDefault(address, List.of())) {
+                stationVersions.put(station, next);
+            }
+        }
+        version.set(next);
+    }
+
+    private static List<Resident> appended(List<Resident> residents, List<Resident> added) {
+        List<Resident> copy = new ArrayList<>((residents == null ? 0 : residents.size()) + added.size());
+        if (residents != null) {
+            copy.addAll(residents);
+        }
+        copy.addAll(added);
+        return Collections.unmodifiableList(copy);
+    }
+
+    // shares the dictionary copies, and the phone and email of a housemate with the same ones
+    private void canonicalize(Person person) {
+        List<Resident> household = residentsByAddress.getOrDefault(PersonKey.fold(person.getAddress()), List.of());
+        dictionary.canonicalize(person, persons(household));
+    }
+
+    private static Person copy(Person person) {
+        return new Person(person.getFirstName(), person.getLastName(), person.getAddress(), person.getCity(),
+                person.getZip(), person.getPhone(), person.getEmail());
+    }
+
+    private Resident join(Person person) {
+        return Resident.of(person, medicalRecordsByName.get(PersonKey.of(person.getFirstName(), person.getLastName())));
+    }
+
+    private static List<Person> persons(List<Resident> residents) {
+        List<Person> persons = new ArrayList<>(residents.size());
+        residents.forEach(r -> persons.add(r.person()));
+        return Collections.unmodifiableList(persons);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.safetynetalerts.repository;
+
+import com.example.safetynetalerts.model.Firestation;
+import com.example.safetynetalerts.model.MedicalRecord;
+import com.example.safetynetalerts.model.Person;
+import com.example.safetynetalerts.repository.loader.DatasetSink;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the indexes of a new {@link Dataset} record by record in plain collections.
+ */
+@Slf4j
+class DatasetBuilder implements DatasetSink {
+    private final Map<PersonKey, Person> byName = new HashMap<>();
+    private final Map<String, List<Person>> byAddress = new HashMap<>();
+    private final Map<Integer, Set<String>> coverage = new HashMap<>();
+    private final Map<PersonKey, MedicalRecord> records = new HashMap<>();
+    private final List<Firestation> stations = new ArrayList<>();
+    private final StringDictionary dictionary;
+    private final boolean offHeapMedicalPayloads;
+
+    DatasetBuilder(StringDictionary dictionary, boolean offHeapMedicalPayloads) {
+        this.dictionary = dictionary;
+        this.offHeapMedicalPayloads = offHeapMedicalPayloads;
+    }
+
+    @Override
+    public void person(Person p) {
+        String address = PersonKey.fold(p.getAddress());
+        dictionary.canonicalize(p, byAddress.getOrDefault(address, List.of()));
+        if (byName.putIfAbsent(PersonKey.of(p.getFirstName(), p.getLastName()), p) == null) {
+            byAddress.computeIfAbsent(address, a -> new ArrayList<>(4)).add(p);
+        } else {
+            log.warn("Duplicate person ignored at load: {} {}", p.getFirstName(), p.getLastName());
+        }
+    }
+
+    @Override
+    public void household(String addressKey, List<Person> residents) {
+        List<Person> household = byAddress.getOrDefault(addressKey, List.of());
+        for (Person p : residents) {
+            dictionary.canonicalize(p, household);
+            if (byName.putIfAbsent(PersonKey.of(p.getFirstName(), p.getLastName()), p) == null) {
+                // the bucket only exists once someone lives there, an empty one would break the readers
+                if (household.isEmpty()) {
+                    household = byAddress.computeIfAbsent(addressKey, a -> new ArrayList<>(residents.size()));
+                }
+                household.add(p);
+            } else {
+                log.warn("Duplicate person ignored at load: {} {}", p.getFirstName(), p.getLastName());
+            }
+        }
+    }
+
+    @Override
+    public void firestation(Firestation f) {
+        f.setAddress(dictionary.canonical(f.getAddress()));
+        stations.add(f);
+        coverage.computeIfAbsent(f.getStation(), s -> new LinkedHashSet<>()).add(PersonKey.fold(f.getAddress()));
+    }
+
+    @Override
+    public void medicalRecord(MedicalRecord mr) {
+        // first record wins, as the former linear lookup did
+        if (offHeapMedicalPayloads) {
+            // the lists move off-heap at build, the dictionary would keep them on it
+            mr.setBirthdate(dictionary.canonical(mr.getBirthdate()));
+        } else {
+            dictionary.canonicalize(mr);
+        }
+        records.putIfAbsent(PersonKey.of(mr.getFirstName(), mr.getLastName()), mr);
+    }
+
+    Dataset build(long generation) {
+        MedicalPayloadStore payloads = offHeapMedicalPayloads
+                ? MedicalPayloadStore.moveOffHeap(records)
+                : MedicalPayloadStore.NONE;
+        return new Dataset(generation, byName, byAddress, coverage, records, stations, dictionary, payloads);
+    }
+}
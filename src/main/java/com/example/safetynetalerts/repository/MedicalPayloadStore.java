@@ -0,0 +1,174 @@
+package com.example.safetynetalerts.repository;
+
+import com.example.safetynetalerts.model.MedicalRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Medication and allergy lists of the medical records of a generation, kept off-heap.
+ * <p>
+ * The lists are the bulkiest part of a record, yet only the /fire, /flood and /personInfo answers
+ * read them. They are encoded into one direct {@link ByteBuffer}, outside the heap the collector
+ * walks, and the generation keeps {@link OffHeapRecord}s that only hold an offset into it and decode
+ * the lists when asked. Each distinct (medications, allergies) pair is encoded once.
+ * <p>
+ * Medical records do not change within a generation, so the buffer is written when the generation
+ * is built and only read afterwards, through absolute reads that threads can share. It is freed
+ * with the last record pointing at it.
+ * <p>
+ * Layout of a payload (big-endian ints): the medications then the allergies, each a count followed
+ * by (byteLength, UTF-8 bytes) per entry. A count or byte length of -1 stands for null.
+ */
+final class MedicalPayloadStore {
+    static final MedicalPayloadStore NONE = new MedicalPayloadStore(ByteBuffer.allocateDirect(0));
+
+    private static final int NULL = -1;
+
+    private final ByteBuffer payloads;
+
+    private MedicalPayloadStore(ByteBuffer payloads) {
+        this.payloads = payloads;
+    }
+
+    /**
+     * Encodes the lists of the records into a new store and replaces each record of the map by a
+     * {@link OffHeapRecord} reading them from it.
+     */
+    static MedicalPayloadStore moveOffHeap(Map<PersonKey, MedicalRecord> records) {
+        Encoder encoder = new Encoder();
+        Map<List<List<String>>, Integer> written = new HashMap<>();
+        Map<PersonKey, Integer> offsets = new HashMap<>(records.size());
+        records.forEach((key, record) -> offsets.put(key, written.computeIfAbsent(
+                Arrays.asList(record.getMedications(), record.getAllergies()), encoder::payload)));
+        byte[] encoded = encoder.toByteArray();
+        ByteBuffer payloads = ByteBuffer.allocateDirect(encoded.length).put(encoded).flip();
+        MedicalPayloadStore store = new MedicalPayloadStore(payloads.asReadOnlyBuffer());
+        records.replaceAll((key, record) -> new OffHeapRecord(record, store, offsets.get(key)));
+        return store;
+    }
+
+    /**
+     * @return bytes held off-heap
+     */
+    int size() {
+        return payloads.capacity();
+    }
+
+    List<String> medications(int offset) {
+        return list(offset);
+    }
+
+    List<String> allergies(int offset) {
+        return list(skip(offset));
+    }
+
+    private List<String> list(int offset) {
+        int count = payloads.getInt(offset);
+        if (count == NULL) {
+            return null;
+        }
+        int at = offset + Integer.BYTES;
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = payloads.getInt(at);
+            at += Integer.BYTES;
+            if (length != NULL) {
+                byte[] bytes = new byte[length];
+                payloads.get(at, bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+                at += length;
+            }
+        }
+        // a plain immutable list cannot hold the null entries a record may have
+        return Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    // offset of the list following the one at offset
+    private int skip(int offset) {
+        int count = payloads.getInt(offset);
+        int at = offset + Integer.BYTES;
+        for (int i = 0; i < count; i++) {
+            int length = payloads.getInt(at);
+            at += Integer.BYTES + Math.max(length, 0);
+        }
+        return at;
+    }
+
+    /**
+     * A medical record whose lists live in a {@link MedicalPayloadStore}: they are decoded on every
+     * read and cannot be replaced.
+     */
+    static final class OffHeapRecord extends MedicalRecord {
+        private final MedicalPayloadStore store;
+        private final int offset;
+
+        private OffHeapRecord(MedicalRecord record, MedicalPayloadStore store, int offset) {
+            this.store = store;
+            this.offset = offset;
+            setFirstName(record.getFirstName());
+            setLastName(record.getLastName());
+            setBirthdate(record.getBirthdate());
+        }
+
+        @Override
+        public List<String> getMedications() {
+            return store.medications(offset);
+        }
+
+        @Override
+        public List<String> getAllergies() {
+            return store.allergies(offset);
+        }
+
+        @Override
+        public void setMedications(List<String> medications) {
+            throw new UnsupportedOperationException("Medications of a stored medical record are read-only");
+        }
+
+        @Override
+        public void setAllergies(List<String> allergies) {
+            throw new UnsupportedOperationException("Allergies of a stored medical record are read-only");
+        }
+    }
+
+    private static final class Encoder extends ByteArrayOutputStream {
+
+        // appends the pair, returns its offset
+        int payload(List<List<String>> lists) {
+            int offset = size();
+            lists.forEach(this::list);
+            return offset;
+        }
+
+        private void list(List<String> values) {
+            if (values == null) {
+                writeInt(NULL);
+                return;
+            }
+            writeInt(values.size());
+            for (String value : values) {
+                if (value == null) {
+                    writeInt(NULL);
+                } else {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    writeInt(bytes.length);
+                    write(bytes, 0, bytes.length);
+                }
+            }
+        }
+
+        private void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.safetynetalerts.repository;
+
+import java.util.Locale;
+
+/**
+ * Case-folded (firstName, lastName) pair used as the identity of a resident
+ * in the repository indexes. Persons and medical records share this key.
+ */
+public record PersonKey(String firstName, String lastName) {
+
+    public static PersonKey of(String firstName, String lastName) {
+        return new PersonKey(fold(firstName), fold(lastName));
+    }
+
+    static String fold(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.safetynetalerts.repository;
+
+import com.example.safetynetalerts.model.MedicalRecord;
+import com.example.safetynetalerts.model.Person;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * A person joined with its medical record when it is stored, so that queries do not have to look
+ * the record up again. The birthdate is parsed once into an epoch day.
+ *
+ * @param medicalRecord  null when the person has no medical record
+ * @param birthEpochDay  {@link #NO_BIRTHDATE} when unknown or unparseable
+ */
+@Slf4j
+public record Resident(Person person, MedicalRecord medicalRecord, int birthEpochDay) {
+    public static final int NO_BIRTHDATE = Integer.MIN_VALUE;
+
+    private static final DateTimeFormatter BIRTHDATE = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    public static Resident of(Person person, MedicalRecord medicalRecord) {
+        return new Resident(person, medicalRecord,
+                medicalRecord == null ? NO_BIRTHDATE : parseBirthdate(medicalRecord.getBirthdate()));
+    }
+
+    static int parseBirthdate(String birthdate) {
+        if (birthdate == null || birthdate.isBlank()) {
+            return NO_BIRTHDATE;
+        }
+        try {
+            return (int) LocalDate.parse(birthdate.trim(), BIRTHDATE).toEpochDay();
+        } catch (DateTimeParseException e) {
+            log.warn("Unparseable birthdate {} ignored", birthdate);
+            return NO_BIRTHDATE;
+        }
+    }
+}
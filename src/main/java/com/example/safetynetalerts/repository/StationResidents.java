@@ -0,0 +1,145 @@
+package com.example.safetynetalerts.repository;
+
+import com.example.safetynetalerts.model.Person;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Materialized view of the residents covered by one fire station, replaced copy-on-write by
+ * {@link Dataset} whenever a person at one of its addresses changes.
+ * <p>
+ * Known birthdates are kept sorted, so the number of residents born on or before a given day is a
+ * binary search. Child and adult counts for the current day follow from two such searches, which
+ * means the daily age rollover needs no update at all. The distinct phone numbers are kept sorted
+ * as well, ready to be returned by /phoneAlert.
+ */
+public final class StationResidents {
+    static final StationResidents EMPTY = new StationResidents(List.of(), new int[0], 0, CountedValues.NONE);
+
+    private final List<Resident> residents;
+    // known birth epoch days, ascending
+    private final int[] birthDays;
+    private final int unknownBirthdates;
+    private final CountedValues phones;
+
+    private StationResidents(List<Resident> residents, int[] birthDays, int unknownBirthdates, CountedValues phones) {
+        this.residents = residents;
+        this.birthDays = birthDays;
+        this.unknownBirthdates = unknownBirthdates;
+        this.phones = phones;
+    }
+
+    public static StationResidents of(List<Resident> residents) {
+        int[] days = new int[residents.size()];
+        int known = 0;
+        for (Resident resident : residents) {
+            if (resident.birthEpochDay() != Resident.NO_BIRTHDATE) {
+                days[known++] = resident.birthEpochDay();
+            }
+        }
+        days = Arrays.copyOf(days, known);
+        Arrays.sort(days);
+        return new StationResidents(Collections.unmodifiableList(new ArrayList<>(residents)), days,
+                residents.size() - known, CountedValues.of(residents.stream().map(r -> r.person().getPhone()).toList()));
+    }
+
+    public List<Resident> residents() {
+        return residents;
+    }
+
+    /**
+     * @return the distinct, non blank phone numbers of the residents, sorted
+     */
+    public List<String> phones() {
+        return phones.list();
+    }
+
+    public int knownBirthdates() {
+        return birthDays.length;
+    }
+
+    public int unknownBirthdates() {
+        return unknownBirthdates;
+    }
+
+    /**
+     * @return how many residents with a known birthdate were born on or before {@code epochDay}
+     */
+    public int bornOnOrBefore(int epochDay) {
+        int low = 0;
+        int high = birthDays.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (birthDays[mid] <= epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Adds a batch of residents: their birthdates are sorted once and merged into the existing ones.
+     */
+    StationResidents withAll(List<Resident> added) {
+        if (added.isEmpty()) {
+            return this;
+        }
+        List<Resident> copy = new ArrayList<>(residents.size() + added.size());
+        copy.addAll(residents);
+        copy.addAll(added);
+        int[] addedDays = new int[added.size()];
+        int known = 0;
+        List<String> addedPhones = new ArrayList<>(added.size());
+        for (Resident resident : added) {
+            if (resident.birthEpochDay() != Resident.NO_BIRTHDATE) {
+                addedDays[known++] = resident.birthEpochDay();
+            }
+            addedPhones.add(resident.person().getPhone());
+        }
+        Arrays.sort(addedDays, 0, known);
+        int[] days = new int[birthDays.length + known];
+        int i = 0;
+        int j = 0;
+        for (int n = 0; n < days.length; n++) {
+            days[n] = j == known || (i < birthDays.length && birthDays[i] <= addedDays[j])
+                    ? birthDays[i++] : addedDays[j++];
+        }
+        return new StationResidents(Collections.unmodifiableList(copy), days,
+                unknownBirthdates + added.size() - known, phones.withAll(addedPhones));
+    }
+
+    StationResidents without(Person person) {
+        Resident removed = null;
+        List<Resident> copy = new ArrayList<>(residents.size());
+        for (Resident resident : residents) {
+            if (removed == null && resident.person() == person) {
+                removed = resident;
+            } else {
+                copy.add(resident);
+            }
+        }
+        if (removed == null) {
+            return this;
+        }
+        if (copy.isEmpty()) {
+            return EMPTY;
+        }
+        CountedValues nextPhones = phones.without(removed.person().getPhone());
+        int day = removed.birthEpochDay();
+        if (day == Resident.NO_BIRTHDATE) {
+            return new StationResidents(Collections.unmodifiableList(copy), birthDays, unknownBirthdates - 1,
+                    nextPhones);
+        }
+        // the last occurrence of day sits just before the insertion point
+        int at = bornOnOrBefore(day) - 1;
+        int[] days = new int[birthDays.length - 1];
+        System.arraycopy(birthDays, 0, days, 0, at);
+        System.arraycopy(birthDays, at + 1, days, at, birthDays.length - at - 1);
+        return new StationResidents(Collections.unmodifiableList(copy), days, unknownBirthdates, nextPhones);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.safetynetalerts.repository;
+
+import com.example.safetynetalerts.model.MedicalRecord;
+import com.example.safetynetalerts.model.Person;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances of the values residents share: address, city and zip, birthdates, and the
+ * medication and allergy strings together with the lists holding them. Each distinct value is kept
+ * once per dataset generation and every record points at that copy.
+ * <p>
+ * Phones and emails are shared within a household but mostly unique across the dataset, where a
+ * dictionary entry would cost more than it saves, so they are only matched against the other
+ * residents of the same address.
+ * <p>
+ * Records are canonicalized in place, before the repository publishes them, so it only ever touches
+ * instances nobody else reads yet. Values are not evicted when the last resident using them goes
+ * away; the next reload starts from a fresh dictionary.
+ */
+final class StringDictionary {
+    static final StringDictionary DISABLED = new StringDictionary(false);
+
+    private final boolean enabled;
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+    private final Map<List<String>, List<String>> lists = new ConcurrentHashMap<>();
+
+    private StringDictionary(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    static StringDictionary create(boolean enabled) {
+        return enabled ? new StringDictionary(true) : DISABLED;
+    }
+
+    /**
+     * @param household the persons already stored at the same address
+     */
+    void canonicalize(Person person, List<Person> household) {
+        if (!enabled) {
+            return;
+        }
+        person.setAddress(canonical(person.getAddress()));
+        person.setCity(canonical(person.getCity()));
+        person.setZip(canonical(person.getZip()));
+        for (Person member : household) {
+            if (member.getPhone() != null && member.getPhone().equals(person.getPhone())) {
+                person.setPhone(member.getPhone());
+            }
+            if (member.getEmail() != null && member.getEmail().equals(person.getEmail())) {
+                person.setEmail(member.getEmail());
+            }
+        }
+    }
+
+    void canonicalize(MedicalRecord record) {
+        if (!enabled) {
+            return;
+        }
+        record.setBirthdate(canonical(record.getBirthdate()));
+        record.setMedications(canonical(record.getMedications()));
+        record.setAllergies(canonical(record.getAllergies()));
+    }
+
+    String canonical(String value) {
+        if (!enabled || value == null) {
+            return value;
+        }
+        String existing = strings.putIfAbsent(value, value);
+        return existing == null ? value : existing;
+    }
+
+    /**
+     * @return an immutable list of canonical strings, shared by every record with the same entries
+     */
+    List<String> canonical(List<String> values) {
+        if (!enabled || values == null) {
+            return values;
+        }
+        if (values.isEmpty()) {
+            return List.of();
+        }
+        String[] entries = new String[values.size()];
+        for (int i = 0; i < entries.length; i++) {
+            if (values.get(i) == null) {
+                // immutable lists cannot hold null, keep such a list as it is
+                return values;
+            }
+            entries[i] = canonical(values.get(i));
+        }
+        List<String> copy = List.of(entries);
+        List<String> existing = lists.putIfAbsent(copy, copy);
+        return existing == null ? copy : existing;
+    }
+
+    int stringCount() {
+        return strings.size();
+    }
+
+    int listCount() {
+        return lists.size();
+    }
+}
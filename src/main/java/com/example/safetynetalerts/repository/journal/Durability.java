@@ -0,0 +1,8 @@
+package com.example.safetynetalerts.repository.journal;
+
+public enum Durability {
+    /** fsync once per group commit, before any of its writers is acknowledged */
+    BATCH,
+    /** acknowledge once written to the OS, fsync on a fixed period */
+    PERIODIC
+}
@@ -0,0 +1,295 @@
+package com.example.safetynetalerts.repository.journal;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * NDJSON journal file with group commit.
+ * <p>
+ * Writers only enqueue. A single writer thread drains whatever is queued (up to maxBatchSize),
+ * writes it with one {@code write} call and, in {@link Durability#BATCH} mode, one {@code fsync},
+ * so concurrent mutations share the cost of the sync.
+ * <p>
+ * A failed write or sync stops the journal for good: the file is truncated back to the end of the
+ * last complete batch, the entries in flight fail, and every later append is rejected, so the file
+ * never holds a gap or a torn line in the middle. The process has to be restarted once the disk
+ * is fixed.
+ * <p>
+ * The file is locked while open, so a second process (the snapshot export command, say) cannot
+ * append to or checkpoint the journal of a running instance.
+ */
+@Slf4j
+public class FileMutationJournal implements MutationJournal {
+
+    private record Pending(JournalEntry entry, CompletableFuture<Void> done) {
+    }
+
+    private final Path path;
+    private final Durability durability;
+    private final long flushIntervalNanos;
+    private final int maxBatchSize;
+    private final ObjectMapper mapper;
+    private final FileChannel channel;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong lastSeq = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+    // set once by the writer thread, then every append is rejected
+    private volatile JournalException failure;
+
+    public FileMutationJournal(Path path, Durability durability, Duration flushInterval, int maxBatchSize) {
+        this.path = path;
+        this.durability = durability;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            lock(channel, path);
+            channel.position(channel.size());
+        } catch (IOException e) {
+            throw new JournalException("Cannot open journal " + path, e);
+        }
+        this.writer = new Thread(this::runWriter, "journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        log.info("Journal {} opened in {} mode", path, durability);
+    }
+
+    private static void lock(FileChannel channel, Path path) throws IOException {
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // held by this JVM
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new JournalException("Journal " + path + " is in use by another process", null);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> append(JournalEntry entry) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (!running) {
+            done.completeExceptionally(new IllegalStateException("Journal is closed"));
+            return done;
+        }
+        JournalException failed = failure;
+        if (failed != null) {
+            done.completeExceptionally(failed);
+            return done;
+        }
+        queue.add(new Pending(entry.withSeq(lastSeq.incrementAndGet()), done));
+        return done;
+    }
+
+    /**
+     * Replays the file. A torn last line (crash in the middle of a write) is truncated away;
+     * an unreadable line anywhere else means the journal is corrupted.
+     */
+    @Override
+    public void replay(Consumer<JournalEntry> consumer) {
+        long validEnd = read(entry -> {
+            consumer.accept(entry);
+            lastSeq.set(Math.max(lastSeq.get(), entry.seq()));
+        });
+        try {
+            if (channel.size() > validEnd) {
+                log.warn("Truncating torn journal tail of {} bytes in {}", channel.size() - validEnd, path);
+                channel.truncate(validEnd);
+            }
+            channel.position(validEnd);
+        } catch (IOException e) {
+            throw new JournalException("Cannot truncate journal " + path, e);
+        }
+    }
+
+    /**
+     * Reads the complete lines only; a line still being written by the writer thread is skipped.
+     */
+    @Override
+    public void scan(Consumer<JournalEntry> consumer) {
+        read(consumer);
+    }
+
+    /**
+     * @return offset just after the last complete line
+     */
+    private long read(Consumer<JournalEntry> consumer) {
+        long validEnd = 0;
+        int entries = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            long offset = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                if (line.size() > 0) {
+                    consumer.accept(mapper.readValue(line.toByteArray(), JournalEntry.class));
+                    entries++;
+                }
+                line.reset();
+                validEnd = offset;
+            }
+        } catch (IOException e) {
+            throw new JournalException("Cannot read journal " + path, e);
+        }
+        log.info("Read {} journal entries from {}", entries, path);
+        return validEnd;
+    }
+
+    /**
+     * Truncates the file. The writer thread is idle: the caller waited for every append in flight
+     * and holds the lock that new appends need.
+     */
+    @Override
+    public void checkpoint() {
+        JournalException failed = failure;
+        if (failed != null) {
+            throw failed;
+        }
+        try {
+            long dropped = channel.size();
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+            log.info("Journal {} checkpointed, {} bytes dropped", path, dropped);
+        } catch (IOException e) {
+            throw new JournalException("Cannot checkpoint journal " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 5_000);
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            log.error("Error closing journal {}", path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- WRITER THREAD ------------------------------------------
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+        long lastForce = System.nanoTime();
+        boolean unsynced = false;
+
+        while (running || !queue.isEmpty()) {
+            Pending first;
+            try {
+                first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first != null) {
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                if (failure != null) {
+                    // appended while the previous batch was failing
+                    batch.forEach(p -> p.done().completeExceptionally(failure));
+                } else {
+                    long goodEnd = -1;
+                    try {
+                        goodEnd = channel.position();
+                        writeBatch(batch, buffer);
+                        if (durability == Durability.BATCH) {
+                            channel.force(false);
+                            lastForce = System.nanoTime();
+                        } else {
+                            unsynced = true;
+                        }
+                        batch.forEach(p -> p.done().complete(null));
+                    } catch (IOException e) {
+                        log.error("Journal group commit of {} entries failed", batch.size(), e);
+                        fail(e, goodEnd);
+                        batch.forEach(p -> p.done().completeExceptionally(e));
+                    }
+                }
+                batch.clear();
+            }
+            if (unsynced && failure == null && System.nanoTime() - lastForce >= flushIntervalNanos) {
+                try {
+                    channel.force(false);
+                    unsynced = false;
+                } catch (IOException e) {
+                    // the entries were acknowledged already, they stay in the file
+                    log.error("Periodic journal fsync failed", e);
+                    fail(e, -1);
+                }
+                lastForce = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting appends and drops the partial batch, if any, so that a restart replays
+     * exactly the acknowledged entries.
+     * @param goodEnd end of the last complete batch, -1 to keep the file as it is
+     */
+    private void fail(IOException cause, long goodEnd) {
+        failure = new JournalException("Journal " + path + " failed, no more mutations are accepted", cause);
+        if (goodEnd < 0) {
+            return;
+        }
+        try {
+            channel.truncate(goodEnd);
+            channel.position(goodEnd);
+        } catch (IOException e) {
+            log.error("Cannot truncate journal {} back to {}, its last line may be torn", path, goodEnd, e);
+        }
+    }
+
+    private void writeBatch(List<Pending> batch, ByteArrayOutputStream buffer) throws IOException {
+        buffer.reset();
+        for (Pending p : batch) {
+            mapper.writeValue(buffer, p.entry());
+            buffer.write('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+}
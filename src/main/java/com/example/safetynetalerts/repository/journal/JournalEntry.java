@@ -0,0 +1,25 @@
+package com.example.safetynetalerts.repository.journal;
+
+import com.example.safetynetalerts.model.Person;
+
+/**
+ * One line of the mutation journal.
+ * PUT carries the full state of the person after a create or an update,
+ * DELETE only carries the name.
+ */
+public record JournalEntry(long seq, Op op, Person person, String firstName, String lastName) {
+
+    public enum Op { PUT, DELETE }
+
+    public static JournalEntry put(Person person) {
+        return new JournalEntry(0, Op.PUT, person, person.getFirstName(), person.getLastName());
+    }
+
+    public static JournalEntry delete(String firstName, String lastName) {
+        return new JournalEntry(0, Op.DELETE, null, firstName, lastName);
+    }
+
+    JournalEntry withSeq(long seq) {
+        return new JournalEntry(seq, op, person, firstName, lastName);
+    }
+}
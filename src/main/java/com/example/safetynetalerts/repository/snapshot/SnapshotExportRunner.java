@@ -0,0 +1,42 @@
+package com.example.safetynetalerts.repository.snapshot;
+
+import com.example.safetynetalerts.repository.DataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Export command: {@code java -jar safetynet-alerts.jar --safetynet.snapshot.export=/srv/data.snap}
+ * boots, loads the dataset (base data plus journal), writes the binary snapshot and exits.
+ * Exporting to {@code safetynet.data.snapshot} also empties the journal, whose entries the snapshot
+ * now holds; the journal file is locked, so this only runs while the service is stopped.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("safetynet.snapshot.export")
+public class SnapshotExportRunner implements ApplicationRunner {
+    private final DataRepository dataRepository;
+    private final ConfigurableApplicationContext context;
+    private final Path target;
+
+    public SnapshotExportRunner(DataRepository dataRepository, ConfigurableApplicationContext context,
+                                @Value("${safetynet.snapshot.export}") Path target) {
+        this.dataRepository = dataRepository;
+        this.context = context;
+        this.target = target;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        dataRepository.exportSnapshot(target);
+        log.info("Snapshot exported to {}, shutting down", target);
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
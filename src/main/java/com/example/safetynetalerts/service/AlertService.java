@@ -1,91 +1,308 @@
 package com.example.safetynetalerts.service;
 
 import com.example.safetynetalerts.api.*;
-import com.example.safetynetalerts.model.Firestation;
+import com.example.safetynetalerts.exception.AddressNotFoundException;
+import com.example.safetynetalerts.model.MedicalRecord;
 import com.example.safetynetalerts.model.Person;
 import com.example.safetynetalerts.repository.DataRepository;
+import com.example.safetynetalerts.repository.Dataset;
+import com.example.safetynetalerts.repository.Resident;
+import com.example.safetynetalerts.repository.StationResidents;
+import com.example.safetynetalerts.service.support.AgeCalculator;
 import com.example.safetynetalerts.service.support.PersonAge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
-import java.time.Period;
-import java.time.format.DateTimeFormatter;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 public class AlertService {
+    static final int MAX_ADDRESS_CANDIDATES = 5;
+
     private final DataRepository dataRepository;
+    private final AgeCalculator ageCalculator;
+    private final Map<Integer, StationDtos> stationDtos = new ConcurrentHashMap<>();
+
+    // safetynet.alert{endpoint, phase}: lookup is the repository index read, ages the age
+    // classification, mapping the DTO building; serialization is timed by the message converter
+    private final Timer fireStationLookup;
+    private final Timer fireStationAges;
+    private final Timer fireStationMapping;
+    private final Timer phoneAlertLookup;
+    private final Timer childAlertLookup;
+    private final Timer childAlertAges;
+    private final Timer fireLookup;
+    private final Timer fireAges;
+    private final Timer personInfoLookup;
+    private final Timer personInfoAges;
+    private final Timer floodLookup;
+    private final Timer floodAges;
 
-    public AlertService(DataRepository dataRepository) {
+    public AlertService(DataRepository dataRepository, AgeCalculator ageCalculator, MeterRegistry meterRegistry) {
         this.dataRepository = dataRepository;
+        this.ageCalculator = ageCalculator;
+        this.fireStationLookup = phaseTimer(meterRegistry, "firestation", "lookup");
+        this.fireStationAges = phaseTimer(meterRegistry, "firestation", "ages");
+        this.fireStationMapping = phaseTimer(meterRegistry, "firestation", "mapping");
+        this.phoneAlertLookup = phaseTimer(meterRegistry, "phoneAlert", "lookup");
+        this.childAlertLookup = phaseTimer(meterRegistry, "childAlert", "lookup");
+        this.childAlertAges = phaseTimer(meterRegistry, "childAlert", "ages");
+        this.fireLookup = phaseTimer(meterRegistry, "fire", "lookup");
+        this.fireAges = phaseTimer(meterRegistry, "fire", "ages");
+        this.personInfoLookup = phaseTimer(meterRegistry, "personInfo", "lookup");
+        this.personInfoAges = phaseTimer(meterRegistry, "personInfo", "ages");
+        this.floodLookup = phaseTimer(meterRegistry, "flood", "lookup");
+        this.floodAges = phaseTimer(meterRegistry, "flood", "ages");
+    }
+
+    private static Timer phaseTimer(MeterRegistry registry, String endpoint, String phase) {
+        return Timer.builder("safetynet.alert")
+                .tag("endpoint", endpoint)
+                .tag("phase", phase)
+                .register(registry);
+    }
+
+    // nanoTime pairs instead of Timer.Sample, so timing adds no allocation
+    private static long lap(Timer timer, long start) {
+        long now = System.nanoTime();
+        timer.record(now - start, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    // --- ETAGS ---------------------------------------------------
+    // Taken before the response is computed: the data may then be newer than the tag, never older,
+    // so a client can at worst refetch once more than needed. Ages roll over daily, so the tags of
+    // age dependent responses include the day.
+
+    public String fireStationEtag(int stationNumber) {
+        Dataset data = dataRepository.current();
+        return etag(data.getGeneration(), data.getStationVersion(stationNumber), ageCalculator.todayEpochDay());
+    }
+
+    public String phoneAlertEtag(int stationNumber) {
+        Dataset data = dataRepository.current();
+        return etag(data.getGeneration(), data.getStationVersion(stationNumber));
+    }
+
+    /**
+     * @return null for an unknown address, whose 404 answer is not cacheable
+     */
+    public String childAlertEtag(String address) {
+        Dataset data = dataRepository.current();
+        if (data.getResidentsByAddress(address).isEmpty()) {
+            return null;
+        }
+        return etag(data.getGeneration(), data.getAddressVersion(address), ageCalculator.todayEpochDay());
+    }
+
+    private static String etag(long... parts) {
+        StringBuilder tag = new StringBuilder("\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                tag.append('-');
+            }
+            tag.append(Long.toHexString(parts[i]));
+        }
+        return tag.append('"').toString();
     }
 
     public List<String>phoneByStation(int stationNumber) {
 
-        //from persons, select those living at the addresses
-        List<String> phones =  dataRepository.getPersonByStation(stationNumber).
-                stream().map(Person::getPhone).filter(p->p != null && !p.isBlank()).distinct().
-                sorted().collect(Collectors.toList());
-        log.info("Phones covered by station# {} are:{}", stationNumber, phones);
+        // distinct, sorted and kept up to date by the repository as residents change
+        long start = System.nanoTime();
+        List<String> phones = dataRepository.current().getStation(stationNumber).phones();
+        lap(phoneAlertLookup, start);
         return phones;
 
     }
-    public int computeAge(String birthdate){
-        DateTimeFormatter  formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-        LocalDate dateOfBirth = LocalDate.parse(birthdate, formatter);
-        return Period.between(dateOfBirth,LocalDate.now()).getYears();
-    }
-    private PersonAge toPersonAge(Person person) {
-        Integer age = dataRepository.getMedicalRecord(person.getFirstName(), person.getLastName()).
-                map(mr->computeAge(mr.getBirthdate())).orElse(null);
-        return new PersonAge(person, age);
+    /**
+     * @return the distinct emails of the city's residents, sorted; kept up to date by the
+     * repository on every person create, update and delete
+     */
+    public List<String> communityEmail(String city) {
+        return dataRepository.current().getEmailsByCity(city);
     }
 
+    /**
+     * An address without exact match is looked up again once canonicalized, so "1509 Culver Street"
+     * answers for "1509 Culver St".
+     * @throws AddressNotFoundException with the most similar inhabited addresses when neither matches
+     */
     public ChildAlertResponse childAlertByAddress(String address){
 
-        List<Person> household = dataRepository.getPersonsByAddress(address);
+        long start = System.nanoTime();
+        Dataset data = dataRepository.current();
+        List<Resident> household = data.getResidentsByAddress(address);
+        if (household.isEmpty()) {
+            household = data.getResidentsByCanonicalAddress(address);
+        }
+        start = lap(childAlertLookup, start);
         if(household.isEmpty()){
-            log.warn("Address {} is not found in database", address);
-            throw new IllegalArgumentException("Address " + address + " is not found in database");
+            log.debug("Address {} is not found in database", address);
+            throw new AddressNotFoundException(address, data.suggestAddresses(address, MAX_ADDRESS_CANDIDATES));
+        }
+
+        // check who is less  = than 18 yo, the others are family members
+        List<ChildDto> children = new ArrayList<>();
+        List<PersonNameDto> familyMembers = new ArrayList<>();
+        for (Resident resident : household) {
+            Person p = resident.person();
+            int age = ageCalculator.ageOf(resident.birthEpochDay());
+            if (PersonAge.isChild(age)) {
+                children.add(new ChildDto(p.getFirstName(), p.getLastName(), age));
+            }
+            if (PersonAge.isAdult(age)) {
+                familyMembers.add(new PersonNameDto(p.getFirstName(), p.getLastName()));
+            }
         }
-        List<PersonAge> withAge = household.stream().
-                map(this::toPersonAge).toList();
-
-
-        // check who is less  = than 18 yo
-        List<ChildDto> children = withAge.stream().filter(
-                PersonAge::isChild).map(pwa -> new ChildDto(pwa.getPerson().getFirstName(),
-                pwa.getPerson().getLastName(),
-                pwa.getAge()
-        )).collect(Collectors.toList());
-        //Other adults
-
-        List<PersonNameDto> familyMembers =withAge.stream().filter(
-                PersonAge::isAdult).map(pwa -> new PersonNameDto(pwa.getPerson().getFirstName(),
-                pwa.getPerson().getLastName()
-        )).collect(Collectors.toList());
-        log.info("childAlert :  {} children at the address {} with {} family members",children,address,familyMembers);
+        lap(childAlertAges, start);
         return new ChildAlertResponse(children, familyMembers);
     }
      public FireStationResponse fireStationByNumber(int stationNumber){
-        List<Person> residence = dataRepository.getPersonByStation( stationNumber);
-        List<PersonAge> ages = residence.stream().map(this::toPersonAge).toList();
-        int childrenCount = (int) ages.stream().filter(PersonAge::isChild).count();
-        int adultCount = (int) ages.stream().filter(PersonAge::isAdult).count();
-
-        List<FireStationPersonDto> dtoList = ages.stream().map(
-                pwa -> new FireStationPersonDto(
-                        pwa.getPerson().getFirstName(),
-                        pwa.getPerson().getLastName(),
-                        pwa.getPerson().getAddress(),
-                        pwa.getPerson().getPhone()
-                )).toList();
-
-        return new FireStationResponse(dtoList, childrenCount, adultCount);
+        return fireStation(stationNumber, false);
+    }
+
+    /**
+     * Same answer as {@link #fireStationByNumber(int)}, but the residents list is a view that maps
+     * each resident to its DTO when it is read, so a caller streaming it only ever holds one DTO.
+     */
+    public FireStationResponse fireStationStreamByNumber(int stationNumber) {
+        return fireStation(stationNumber, true);
+    }
+
+    private FireStationResponse fireStation(int stationNumber, boolean lazy) {
+        long start = System.nanoTime();
+        StationResidents station = dataRepository.current().getStation(stationNumber);
+        start = lap(fireStationLookup, start);
+        // child means age <= 18, adult means age >= 18 or unknown, so 18 year olds count as both
+        int childrenCount = station.knownBirthdates() - station.bornOnOrBefore(ageCalculator.latestBirthDayFor(19));
+        int adultCount = station.unknownBirthdates() + station.bornOnOrBefore(ageCalculator.latestBirthDayFor(18));
+        start = lap(fireStationAges, start);
+        List<FireStationPersonDto> residents = lazy
+                ? new FireStationPersonView(station.residents())
+                : stationDtos(stationNumber, station);
+        lap(fireStationMapping, start);
+        return new FireStationResponse(residents, childrenCount, adultCount);
+    }
+
+    /**
+     * Stations covering the address and its residents with their medical data. Both come from the
+     * same normalized address key; the residents are already joined with their medical record.
+     * @throws IllegalArgumentException when no station covers the address and nobody lives there
+     */
+    public FireResponse fireByAddress(String address) {
+        long start = System.nanoTime();
+        Dataset data = dataRepository.current();
+        List<Integer> stations = data.getStationsByAddress(address);
+        List<Resident> household = data.getResidentsByAddress(address);
+        start = lap(fireLookup, start);
+        if (stations.isEmpty() && household.isEmpty()) {
+            log.debug("Address {} is not found in database", address);
+            throw new IllegalArgumentException("Address " + address + " is not found in database");
+        }
+        List<ResidentMedicalDto> residents = new ArrayList<>(household.size());
+        for (Resident resident : household) {
+            residents.add(residentMedical(resident));
+        }
+        lap(fireAges, start);
+        return new FireResponse(stations, residents);
+    }
+
+    /**
+     * Everyone with that last name, ignoring case, with address, age, email and medical data.
+     * Costs the number of matches: the last name index already holds the joined residents.
+     */
+    public List<PersonInfoDto> personInfoByLastName(String lastName) {
+        long start = System.nanoTime();
+        List<Resident> matches = dataRepository.current().getResidentsByLastName(lastName);
+        start = lap(personInfoLookup, start);
+        List<PersonInfoDto> result = new ArrayList<>(matches.size());
+        for (Resident resident : matches) {
+            Person p = resident.person();
+            MedicalRecord record = resident.medicalRecord();
+            result.add(new PersonInfoDto(p.getFirstName(), p.getLastName(), p.getAddress(),
+                    knownAge(ageCalculator.ageOf(resident.birthEpochDay())), p.getEmail(),
+                    record == null ? List.of() : record.getMedications(),
+                    record == null ? List.of() : record.getAllergies()));
+        }
+        lap(personInfoAges, start);
+        return result;
+    }
+
+    /**
+     * Households of all the given stations, an address covered by several of them listed once.
+     */
+    public List<HouseholdDto> floodByStations(List<Integer> stationNumbers) {
+        long start = System.nanoTime();
+        List<List<Resident>> households = dataRepository.current().getHouseholdsByStations(stationNumbers);
+        start = lap(floodLookup, start);
+        List<HouseholdDto> result = new ArrayList<>(households.size());
+        for (List<Resident> household : households) {
+            List<ResidentMedicalDto> residents = new ArrayList<>(household.size());
+            for (Resident resident : household) {
+                residents.add(residentMedical(resident));
+            }
+            // the address as written for the first resident, not the normalized index key
+            result.add(new HouseholdDto(household.get(0).person().getAddress(), residents));
+        }
+        lap(floodAges, start);
+        return result;
+    }
+
+    private ResidentMedicalDto residentMedical(Resident resident) {
+        Person p = resident.person();
+        MedicalRecord record = resident.medicalRecord();
+        return new ResidentMedicalDto(p.getFirstName(), p.getLastName(), p.getPhone(),
+                knownAge(ageCalculator.ageOf(resident.birthEpochDay())),
+                record == null ? List.of() : record.getMedications(),
+                record == null ? List.of() : record.getAllergies());
+    }
+
+    private static Integer knownAge(int age) {
+        return age == PersonAge.UNKNOWN ? null : age;
+    }
+
+    // the DTO list only changes when the station's residents do, which replaces the StationResidents instance
+    private List<FireStationPersonDto> stationDtos(int stationNumber, StationResidents station) {
+        if (station.residents().isEmpty()) {
+            return List.of();
+        }
+        StationDtos cached = stationDtos.get(stationNumber);
+        if (cached != null && cached.source() == station) {
+            return cached.dtos();
+        }
+        List<FireStationPersonDto> dtos = List.copyOf(new FireStationPersonView(station.residents()));
+        stationDtos.put(stationNumber, new StationDtos(station, dtos));
+        return dtos;
+    }
+
+    private record StationDtos(StationResidents source, List<FireStationPersonDto> dtos) {
+    }
+
+    private static final class FireStationPersonView extends AbstractList<FireStationPersonDto> {
+        private final List<Resident> residents;
+
+        FireStationPersonView(List<Resident> residents) {
+            this.residents = residents;
+        }
+
+        @Override
+        public FireStationPersonDto get(int index) {
+            Person p = residents.get(index).person();
+            return new FireStationPersonDto(p.getFirstName(), p.getLastName(), p.getAddress(), p.getPhone());
+        }
+
+        @Override
+        public int size() {
+            return residents.size();
+        }
     }
 }
@@ -0,0 +1,151 @@
+package com.example.safetynetalerts.service;
+
+import com.example.safetynetalerts.config.DataProperties;
+import com.example.safetynetalerts.repository.DataRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs dataset reloads in the background, one at a time, triggered by the admin endpoint
+ * or by a change of the data file on disk.
+ */
+@Slf4j
+@Service
+public class DatasetReloadService {
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    private final DataRepository dataRepository;
+    private final DataProperties dataProperties;
+    private final ResourceLoader resourceLoader;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "dataset-reload");
+        t.setDaemon(true);
+        return t;
+    });
+    // reload queued but not started yet, shared by every request made in the meantime
+    private final AtomicReference<CompletableFuture<Long>> queued = new AtomicReference<>();
+    private WatchService watchService;
+
+    public DatasetReloadService(DataRepository dataRepository, DataProperties dataProperties,
+                                ResourceLoader resourceLoader) {
+        this.dataRepository = dataRepository;
+        this.dataProperties = dataProperties;
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * @return completes with the generation served after the reload
+     */
+    public CompletableFuture<Long> requestReload() {
+        while (true) {
+            CompletableFuture<Long> existing = queued.get();
+            if (existing != null) {
+                return existing;
+            }
+            CompletableFuture<Long> reload = new CompletableFuture<>();
+            if (queued.compareAndSet(null, reload)) {
+                executor.execute(() -> {
+                    queued.compareAndSet(reload, null);
+                    try {
+                        reload.complete(dataRepository.reload());
+                    } catch (RuntimeException e) {
+                        log.error("Dataset reload failed, still serving generation {}",
+                                dataRepository.current().getGeneration(), e);
+                        reload.completeExceptionally(e);
+                    }
+                });
+                return reload;
+            }
+        }
+    }
+
+    public long servedGeneration() {
+        return dataRepository.current().getGeneration();
+    }
+
+    // --- FILE WATCHER -------------------------------------------
+
+    @PostConstruct
+    void startWatching() throws IOException {
+        if (!dataProperties.watch()) {
+            return;
+        }
+        Path file = watchedFile();
+        if (file == null) {
+            log.warn("safetynet.data.watch is on but {} is not a file on disk, nothing to watch",
+                    dataProperties.location());
+            return;
+        }
+        Path dir = file.toAbsolutePath().getParent();
+        watchService = FileSystems.getDefault().newWatchService();
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread watcher = new Thread(() -> watch(file.getFileName()), "dataset-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Watching {} for dataset changes", file);
+    }
+
+    private Path watchedFile() {
+        if (dataProperties.snapshot() != null) {
+            return dataProperties.snapshot();
+        }
+        try {
+            Path file = resourceLoader.getResource(dataProperties.location()).getFile().toPath();
+            return Files.isRegularFile(file) ? file : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void watch(Path fileName) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean touched = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    touched |= fileName.equals(event.context());
+                }
+                key.reset();
+                if (touched) {
+                    // writers usually produce several events, wait until the file settles
+                    WatchKey more;
+                    while ((more = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                        more.pollEvents();
+                        more.reset();
+                    }
+                    log.info("{} changed on disk, reloading", fileName);
+                    requestReload();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            log.debug("Dataset watcher stopped");
+        }
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.safetynetalerts.service;
+
+import com.example.safetynetalerts.api.ImportLineError;
+import com.example.safetynetalerts.api.PersonCreateRequest;
+import com.example.safetynetalerts.api.PersonImportResponse;
+import com.example.safetynetalerts.model.Person;
+import com.example.safetynetalerts.repository.DataRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk creation of persons from a streamed body, either NDJSON (one record per line) or a JSON array.
+ * <p>
+ * Records are parsed one at a time and validated like {@code POST /person}; valid ones are inserted
+ * in batches of {@value #BATCH_SIZE} through {@link DataRepository#addPersonsIfAbsent(List)}, so
+ * memory stays bounded by one batch whatever the body size. A record that fails mapping or
+ * validation is reported and skipped; a syntax error ends the import, keeping what was inserted
+ * before it.
+ */
+@Slf4j
+@Service
+public class PersonImportService {
+    static final int BATCH_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final DataRepository dataRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    public PersonImportService(DataRepository dataRepository, ObjectMapper objectMapper, Validator validator) {
+        this.dataRepository = dataRepository;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    public PersonImportResponse importPersons(InputStream body) throws IOException {
+        long start = System.nanoTime();
+        Summary summary = new Summary();
+        List<Person> batch = new ArrayList<>(BATCH_SIZE);
+        List<Integer> batchLines = new ArrayList<>(BATCH_SIZE);
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_ARRAY) {
+                    token = parser.nextToken();
+                }
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    int line = parser.currentTokenLocation().getLineNr();
+                    // reading a whole tree first keeps the parser on a record boundary when mapping fails
+                    JsonNode node = parser.readValueAsTree();
+                    summary.received++;
+                    Person person = toPerson(node, line, summary);
+                    if (person != null) {
+                        batch.add(person);
+                        batchLines.add(line);
+                        if (batch.size() == BATCH_SIZE) {
+                            insert(batch, batchLines, summary);
+                        }
+                    }
+                    token = parser.nextToken();
+                }
+            } catch (JsonProcessingException e) {
+                int line = e.getLocation() == null ? parser.currentLocation().getLineNr() : e.getLocation().getLineNr();
+                summary.reject(line, ImportLineError.Status.MALFORMED, e.getOriginalMessage());
+            }
+        }
+        insert(batch, batchLines, summary);
+        log.info("Imported {} of {} persons in {} ms", summary.created, summary.received,
+                (System.nanoTime() - start) / 1_000_000);
+        return summary.toResponse();
+    }
+
+    private Person toPerson(JsonNode node, int line, Summary summary) {
+        PersonCreateRequest req;
+        try {
+            req = objectMapper.treeToValue(node, PersonCreateRequest.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            summary.reject(line, ImportLineError.Status.INVALID, "not a person record");
+            return null;
+        }
+        Set<ConstraintViolation<PersonCreateRequest>> violations = validator.validate(req);
+        if (!violations.isEmpty()) {
+            summary.reject(line, ImportLineError.Status.INVALID, violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+        return new Person(req.getFirstName(), req.getLastName(), req.getAddress(), req.getCity(),
+                req.getZip(), req.getPhone(), req.getEmail());
+    }
+
+    private void insert(List<Person> batch, List<Integer> batchLines, Summary summary) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        boolean[] inserted = dataRepository.addPersonsIfAbsent(batch);
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i]) {
+                summary.created++;
+            } else {
+                summary.duplicates++;
+                summary.reject(batchLines.get(i), ImportLineError.Status.DUPLICATE,
+                        "Person with the same first and last name already exists");
+            }
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private static final class Summary {
+        int received;
+        int created;
+        int duplicates;
+        int invalid;
+        int rejected;
+        final List<ImportLineError> errors = new ArrayList<>();
+
+        void reject(int line, ImportLineError.Status status, String message) {
+            if (status == ImportLineError.Status.INVALID) {
+                invalid++;
+            }
+            if (rejected++ < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportLineError(line, status, message));
+            }
+        }
+
+        PersonImportResponse toResponse() {
+            // duplicates are only known once their batch is inserted
+            errors.sort(Comparator.comparingInt(ImportLineError::getLine));
+            return new PersonImportResponse(received, created, duplicates, invalid, errors,
+                    rejected > errors.size());
+        }
+    }
+}
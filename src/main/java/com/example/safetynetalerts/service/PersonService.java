@@ -7,7 +7,7 @@ import com.example.safetynetalerts.repository.DataRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.Optional;
 
 
 @Slf4j
@@ -22,13 +22,6 @@ public class PersonService {
     }
 
     public PersonResponse create(PersonCreateRequest req) {
-        List<Person> persons = dataRepository.getPersons();
-
-
-      if (alreadyExists(req.getFirstName(), req.getLastName())) {
-          throw new IllegalStateException("Person with same first and last name already exists");
-      }
-
         Person newPerson = new Person(
                 req.getFirstName(),
                 req.getLastName(),
@@ -38,7 +31,11 @@ public class PersonService {
                         req.getPhone(),
                         req.getEmail()
         );
-        persons.add(newPerson);
+        // check-and-insert is a single atomic step in the repository; names match ignoring case,
+        // as in update and delete, so that no two persons differ only by case
+        if (!dataRepository.addPersonIfAbsent(newPerson)) {
+            throw new IllegalStateException("Person with same first and last name already exists");
+        }
         log.info("Added new person: {}", newPerson.getFirstName() + " " + newPerson.getLastName());
 
         return new PersonResponse(
@@ -48,18 +45,9 @@ public class PersonService {
                 null /// age is calculated from medical record.
         );
     }
-    private  boolean alreadyExists(String firstName, String lastName){
-        List<Person> persons = dataRepository.getPersons();
-       return persons.stream().anyMatch(p -> p.getFirstName().equals( firstName) &&
-                p.getLastName().equals(lastName));
-    }
 
     public boolean deletePerson(String firstName, String lastName) {
-        List<Person> persons = dataRepository.getPersons();
-
-        boolean removed = persons.removeIf(p ->
-                p.getFirstName().equalsIgnoreCase(firstName)
-                        && p.getLastName().equalsIgnoreCase(lastName));
+        boolean removed = dataRepository.removePerson(firstName, lastName);
 
         if (removed) {
             log.info("Deleted person: {} {}", firstName, lastName);
@@ -81,47 +69,52 @@ public class PersonService {
 
 
     public UpdateOutcome updatePersonFields(String firstName, String lastName, PersonCreateRequest req) {
-        List<Person> persons = dataRepository.getPersons();
-
-        for (Person p : persons) {
-            if (p.getFirstName().equalsIgnoreCase(firstName)
-                    && p.getLastName().equalsIgnoreCase(lastName)) {
-
-                boolean changed = false;
-
-                if (differentTrim(p.getAddress(), req.getAddress())) {
-                    p.setAddress(req.getAddress());
-                    changed = true;
-                }
-                if (differentTrim(p.getCity(), req.getCity())) {
-                    p.setCity(req.getCity());
-                    changed = true;
-                }
-                if (differentTrim(p.getZip(), req.getZip())) {
-                    p.setZip(req.getZip());
-                    changed = true;
-                }
-                if (differentTrim(p.getPhone(), req.getPhone())) {
-                    p.setPhone(req.getPhone());
-                    changed = true;
-                }
-                if (differentTrim(p.getEmail(), req.getEmail())) {
-                    p.setEmail(req.getEmail());
-                    changed = true;
-                }
-
-                if (!changed) {
-                    log.info("No fields changed for {} {}", firstName, lastName);
-                    return new UpdateOutcome(UpdateStatus.NO_CHANGE, toResponse(p));
-                }
+        // optimistic loop: stored persons are immutable, so build a changed copy
+        // and publish it only if nobody replaced the person in the meantime
+        while (true) {
+            Optional<Person> current = dataRepository.findPerson(firstName, lastName);
+            if (current.isEmpty()) {
+                log.warn("Person not found: {} {}", firstName, lastName);
+                return new UpdateOutcome(UpdateStatus.NOT_FOUND, null);
+            }
+            Person p = current.get();
+            Person updated = new Person(p.getFirstName(), p.getLastName(),
+                    p.getAddress(), p.getCity(), p.getZip(), p.getPhone(), p.getEmail());
 
+            boolean changed = false;
+
+            if (differentTrim(p.getAddress(), req.getAddress())) {
+                updated.setAddress(req.getAddress());
+                changed = true;
+            }
+            if (differentTrim(p.getCity(), req.getCity())) {
+                updated.setCity(req.getCity());
+                changed = true;
+            }
+            if (differentTrim(p.getZip(), req.getZip())) {
+                updated.setZip(req.getZip());
+                changed = true;
+            }
+            if (differentTrim(p.getPhone(), req.getPhone())) {
+                updated.setPhone(req.getPhone());
+                changed = true;
+            }
+            if (differentTrim(p.getEmail(), req.getEmail())) {
+                updated.setEmail(req.getEmail());
+                changed = true;
+            }
+
+            if (!changed) {
+                log.info("No fields changed for {} {}", firstName, lastName);
+                return new UpdateOutcome(UpdateStatus.NO_CHANGE, toResponse(p));
+            }
+
+            if (dataRepository.replacePerson(p, updated)) {
                 log.info("Updated person fields: {} {}", firstName, lastName);
-                return new UpdateOutcome(UpdateStatus.UPDATED, toResponse(p));
+                return new UpdateOutcome(UpdateStatus.UPDATED, toResponse(updated));
             }
+            log.debug("Concurrent update of {} {}, retrying", firstName, lastName);
         }
-
-        log.warn("Person not found: {} {}", firstName, lastName);
-        return new UpdateOutcome(UpdateStatus.NOT_FOUND, null);
     }
 
     // --- HELPERS ------------------------------------------------
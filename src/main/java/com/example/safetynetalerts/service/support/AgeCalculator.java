@@ -0,0 +1,90 @@
+package com.example.safetynetalerts.service.support;
+
+import com.example.safetynetalerts.repository.Resident;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * Computes ages from birthdates already parsed into epoch days (see {@link Resident}).
+ * <p>
+ * For the current day it keeps a table of the epoch day on which each age starts, so computing an
+ * age is a binary search over that table and allocates nothing. The table is rebuilt on the first
+ * call after midnight.
+ */
+@Component
+public class AgeCalculator {
+    private static final int MAX_AGE = 150;
+
+    private final Clock clock;
+    private volatile Day today;
+
+    @Autowired
+    public AgeCalculator() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public AgeCalculator(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @return the age in full years, {@link PersonAge#UNKNOWN} when the birthdate is unknown,
+     *         0 for a birthdate in the future
+     */
+    public int ageOf(int birthEpochDay) {
+        if (birthEpochDay == Resident.NO_BIRTHDATE) {
+            return PersonAge.UNKNOWN;
+        }
+        int[] ageStarts = day().ageStarts;
+        // ageStarts is descending: ageStarts[k] is the latest birth day for which the age is at least k
+        int low = 0;
+        int high = ageStarts.length - 1;
+        if (birthEpochDay > ageStarts[0]) {
+            return 0;
+        }
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (ageStarts[mid] >= birthEpochDay) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    public int todayEpochDay() {
+        return day().ageStarts[0];
+    }
+
+    /**
+     * @return the latest epoch day a person can be born on and be at least {@code age} years old today
+     */
+    public int latestBirthDayFor(int age) {
+        return day().ageStarts[age];
+    }
+
+    private Day day() {
+        Day day = today;
+        long now = clock.millis();
+        if (day == null || now >= day.validUntilMillis) {
+            day = Day.of(LocalDate.now(clock), clock);
+            today = day;
+        }
+        return day;
+    }
+
+    private record Day(long validUntilMillis, int[] ageStarts) {
+        static Day of(LocalDate date, Clock clock) {
+            int[] ageStarts = new int[MAX_AGE + 1];
+            for (int age = 0; age <= MAX_AGE; age++) {
+                ageStarts[age] = (int) date.minusYears(age).toEpochDay();
+            }
+            long validUntil = date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+            return new Day(validUntil, ageStarts);
+        }
+    }
+}
@@ -1,24 +1,14 @@
 package com.example.safetynetalerts.service.support;
 
-import com.example.safetynetalerts.model.Person;
+public final class PersonAge {
+    public static final int UNKNOWN = -1;
 
-public class PersonAge {
-    private final Person person;
-    private final Integer age;
-    public PersonAge(Person person, Integer age) {
-        this.person = person;
-        this.age = age;
+    private PersonAge() {
     }
-    public Person getPerson(){
-        return person;
+    public static boolean isChild(int age) {
+        return age != UNKNOWN && age <= 18;
     }
-    public Integer getAge(){
-        return age;
-    }
-    public boolean isChild(){
-        return age!=null && age<= 18;
-    }
-    public boolean isAdult() {
-        return age==null || age>= 18;
+    public static boolean isAdult(int age) {
+        return age == UNKNOWN || age >= 18;
     }
 }
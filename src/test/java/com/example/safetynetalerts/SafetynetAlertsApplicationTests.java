@@ -1,8 +1,13 @@
 package com.example.safetynetalerts;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
 
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.times;
@@ -10,6 +15,16 @@ import static org.mockito.Mockito.times;
 @SpringBootTest
 class SafetynetAlertsApplicationTests {
 
+    @TempDir
+    static Path dir;
+
+    // the context opens the audit log, kept out of the working directory
+    @DynamicPropertySource
+    static void auditLog(DynamicPropertyRegistry registry) {
+        registry.add("safetynet.audit.enabled", () -> "true");
+        registry.add("safetynet.audit.path", () -> dir.resolve("audit.ndjson").toString());
+    }
+
     @Test
     void main_runsSpringApplication() {
         // Arrange: mock SpringApplication.run
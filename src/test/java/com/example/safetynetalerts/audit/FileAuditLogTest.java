@@ -0,0 +1,164 @@
+package com.example.safetynetalerts.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileAuditLogTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private FileAuditLog open(Path file, double payloadSampleRate) {
+        return new FileAuditLog(file, 1024, 64, Duration.ofMillis(20), payloadSampleRate, 1 << 20, 2, mapper);
+    }
+
+    private List<JsonNode> lines(Path file) throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            lines.add(mapper.readTree(line));
+        }
+        return lines;
+    }
+
+    @Test
+    void record_writesOneLinePerEventInOrder_andPayloadWhenSampled() throws IOException {
+        Path file = dir.resolve("audit.ndjson");
+        FileAuditLog auditLog = open(file, 1.0);
+        auditLog.record("/phoneAlert", "1", 200, 2, 42_000, List.of("841-874-6512", "841-874-6513"));
+        auditLog.record("/childAlert", "Nowhere", 404, 0, 7_000, null);
+        auditLog.close();
+
+        List<JsonNode> lines = lines(file);
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0).get("endpoint").asText()).isEqualTo("/phoneAlert");
+        assertThat(lines.get(0).get("key").asText()).isEqualTo("1");
+        assertThat(lines.get(0).get("results").asInt()).isEqualTo(2);
+        assertThat(lines.get(0).get("durationMicros").asLong()).isEqualTo(42);
+        // a bare list of phone numbers is contact data
+        assertThat(lines.get(0).get("payload").get(1).asText()).isEqualTo(FileAuditLog.REDACTED);
+        assertThat(lines.get(1).get("status").asInt()).isEqualTo(404);
+        assertThat(lines.get(1).has("payload")).isFalse();
+        assertThat(auditLog.written()).isEqualTo(2);
+    }
+
+    @Test
+    void record_withZeroSampleRate_neverWritesPayload() throws IOException {
+        Path file = dir.resolve("audit.ndjson");
+        FileAuditLog auditLog = open(file, 0.0);
+        for (int i = 0; i < 100; i++) {
+            auditLog.record("/fire", "1509 Culver St", 200, 1, 1_000, Map.of("stations", List.of(1)));
+        }
+        auditLog.close();
+
+        assertThat(lines(file)).hasSize(100).noneMatch(line -> line.has("payload"));
+    }
+
+    @Test
+    void record_afterClose_isDroppedWithoutBlocking() {
+        FileAuditLog auditLog = open(dir.resolve("audit.ndjson"), 0.0);
+        auditLog.close();
+
+        auditLog.record("/phoneAlert", "1", 200, 0, 1_000, null);
+
+        assertThat(auditLog.dropped()).isEqualTo(1);
+        assertThat(auditLog.written()).isZero();
+    }
+
+    @Test
+    void disabled_writesNothing() {
+        AuditLog.DISABLED.record("/phoneAlert", "1", 200, 2, 1_000, List.of("841-874-6512"));
+        AuditLog.DISABLED.close();
+
+        assertThat(AuditLog.DISABLED.written()).isZero();
+        assertThat(AuditLog.DISABLED.dropped()).isZero();
+        assertThat(dir).isEmptyDirectory();
+    }
+
+    @Test
+    void reopen_appendsToExistingFile() throws IOException {
+        Path file = dir.resolve("audit.ndjson");
+        FileAuditLog first = open(file, 0.0);
+        first.record("/phoneAlert", "1", 200, 0, 1_000, null);
+        first.close();
+        FileAuditLog second = open(file, 0.0);
+        second.record("/phoneAlert", "2", 200, 0, 1_000, null);
+        second.close();
+
+        assertThat(lines(file)).extracting(line -> line.get("key").asText()).containsExactly("1", "2");
+    }
+
+    @Test
+    void record_hashesAddressNameAndCityKeys_andKeepsStationNumbers() throws IOException {
+        Path file = dir.resolve("audit.ndjson");
+        FileAuditLog auditLog = open(file, 0.0);
+        auditLog.record("/childAlert", "1509 Culver St", 200, 2, 1_000, null);
+        auditLog.record("/fire", "1509 Culver St", 200, 5, 1_000, null);
+        auditLog.record("/personInfo", "Boyd", 200, 6, 1_000, null);
+        auditLog.record("/communityEmail", "Culver", 200, 20, 1_000, null);
+        auditLog.record("/flood/stations", "[1, 2]", 200, 4, 1_000, null);
+        auditLog.close();
+
+        String written = Files.readString(file);
+        assertThat(written).doesNotContain("Culver", "Boyd");
+        List<String> keys = lines(file).stream().map(line -> line.get("key").asText()).toList();
+        assertThat(keys.get(0)).startsWith("sha256:").hasSize("sha256:".length() + 16);
+        // repeated lookups of one address still share a key
+        assertThat(keys.get(1)).isEqualTo(keys.get(0));
+        assertThat(keys.get(2)).isNotEqualTo(keys.get(0)).startsWith("sha256:");
+        assertThat(keys.get(3)).startsWith("sha256:");
+        assertThat(keys.get(4)).isEqualTo("[1, 2]");
+    }
+
+    @Test
+    void record_sampledPayload_masksContactAndMedicalFields() throws IOException {
+        Path file = dir.resolve("audit.ndjson");
+        FileAuditLog auditLog = open(file, 1.0);
+        auditLog.record("/fire", "1509 Culver St", 200, 1, 1_000, Map.of(
+                "stations", List.of(3),
+                "residents", List.of(Map.of("firstName", "John", "phone", "841-874-6512", "age", 40,
+                        "medications", List.of("aznol:350mg"), "allergies", List.of("nillacilan")))));
+        auditLog.close();
+
+        JsonNode payload = lines(file).get(0).get("payload");
+        assertThat(payload.get("stations").get(0).asInt()).isEqualTo(3);
+        JsonNode resident = payload.get("residents").get(0);
+        assertThat(resident.get("firstName").asText()).isEqualTo("John");
+        assertThat(resident.get("age").asInt()).isEqualTo(40);
+        assertThat(resident.get("phone").asText()).isEqualTo(FileAuditLog.REDACTED);
+        assertThat(resident.get("medications").asText()).isEqualTo(FileAuditLog.REDACTED);
+        assertThat(resident.get("allergies").asText()).isEqualTo(FileAuditLog.REDACTED);
+    }
+
+    @Test
+    void record_beyondMaxFileSize_rotatesAndKeepsMaxHistoryFiles() throws IOException {
+        Path file = dir.resolve("audit.ndjson");
+        // one event per batch: every line lands in a file of its own
+        FileAuditLog auditLog = new FileAuditLog(file, 1024, 1, Duration.ofMillis(20), 0.0, 10, 2, mapper);
+        for (int i = 1; i <= 4; i++) {
+            auditLog.record("/phoneAlert", String.valueOf(i), 200, 0, 1_000, null);
+        }
+        auditLog.close();
+
+        assertThat(lines(file)).extracting(line -> line.get("key").asText()).containsExactly("4");
+        assertThat(lines(dir.resolve("audit.ndjson.1"))).extracting(line -> line.get("key").asText())
+                .containsExactly("3");
+        assertThat(lines(dir.resolve("audit.ndjson.2"))).extracting(line -> line.get("key").asText())
+                .containsExactly("2");
+        assertThat(dir.resolve("audit.ndjson.3")).doesNotExist();
+        assertThat(auditLog.written()).isEqualTo(4);
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.safetynetalerts.controller;
 
 import com.example.safetynetalerts.api.*;
+import com.example.safetynetalerts.audit.AuditLog;
+import com.example.safetynetalerts.exception.AddressNotFoundException;
 import com.example.safetynetalerts.service.AlertService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.MediaType;
@@ -8,12 +10,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
 
+import static org.hamcrest.Matchers.hasItem;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -24,6 +36,8 @@ public class AlertControllerTest {
 
     @MockitoBean
     private AlertService alertService;
+    @MockitoBean
+    private AuditLog auditLog;
 
     @Test
     void childAlert_returnOKAndPayload() throws Exception {
@@ -64,6 +78,18 @@ public class AlertControllerTest {
                         .value("Address is not found in database"));
     }
 
+    @Test
+    void childAlert_unknownAddress_listsCandidates() throws Exception {
+        when(alertService.childAlertByAddress("1509 Culvr St"))
+                .thenThrow(new AddressNotFoundException("1509 Culvr St", List.of("1509 Culver St", "1509 Calver St")));
+
+        mvc.perform(get("/childAlert").param("address", "1509 Culvr St"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Address is not found in database"))
+                .andExpect(jsonPath("$.candidates[0]").value("1509 Culver St"))
+                .andExpect(jsonPath("$.candidates[1]").value("1509 Calver St"));
+    }
+
     @Test
     void childAlert_missingParam_Status400() throws Exception {
         mvc.perform(get("/childAlert")).andExpect(status().isBadRequest());
@@ -111,4 +137,249 @@ public class AlertControllerTest {
         mvc.perform(get("/firestation")).andExpect(status().isBadRequest());
     }
 
+    @Test
+    void firestation_setsEtag_andAnswers304WithoutRecomputingWhenItMatches() throws Exception {
+        when(alertService.fireStationEtag(1)).thenReturn("\"3-7-4e20\"");
+        when(alertService.fireStationByNumber(1)).thenReturn(new FireStationResponse(List.of(), 0, 0));
+
+        mvc.perform(get("/firestation").param("stationNumber", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3-7-4e20\""));
+
+        mvc.perform(get("/firestation").param("stationNumber", "1").header("If-None-Match", "\"3-7-4e20\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(alertService, times(1)).fireStationByNumber(1);
+    }
+
+    @Test
+    void phoneAlert_staleEtag_returnsFreshPayload() throws Exception {
+        when(alertService.phoneAlertEtag(1)).thenReturn("\"3-8\"");
+        when(alertService.phoneByStation(1)).thenReturn(List.of("841-874-6512"));
+
+        mvc.perform(get("/phoneAlert").param("stationNumber", "1").header("If-None-Match", "\"3-7\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3-8\""))
+                .andExpect(jsonPath("$[0]").value("841-874-6512"));
+    }
+
+    @Test
+    void childAlert_unknownAddressHasNoEtag() throws Exception {
+        when(alertService.childAlertByAddress("unknown"))
+                .thenThrow(new IllegalArgumentException("Address not found"));
+
+        mvc.perform(get("/childAlert").param("address", "unknown").header("If-None-Match", "*"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    void floodStations_returnsHouseholdsOfAllStations() throws Exception {
+        when(alertService.floodByStations(List.of(1, 2))).thenReturn(List.of(
+                new HouseholdDto("1509 Culver St", List.of(
+                        new ResidentMedicalDto("John", "Boyd", "841-874-6512", 40, List.of("aznol:350mg"), List.of())))));
+
+        mvc.perform(get("/flood/stations").param("stations", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].address").value("1509 Culver St"))
+                .andExpect(jsonPath("$[0].residents[0].age").value(40))
+                .andExpect(jsonPath("$[0].residents[0].medications[0]").value("aznol:350mg"));
+    }
+
+    @Test
+    void floodStations_missingParam_Status400() throws Exception {
+        mvc.perform(get("/flood/stations")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void floodStations_emptyStationNumber_Status400() throws Exception {
+        mvc.perform(get("/flood/stations").param("stations", "1,,2"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Station numbers must not be empty"));
+        verifyNoInteractions(alertService);
+    }
+
+    @Test
+    void fire_returnsStationsAndResidents() throws Exception {
+        when(alertService.fireByAddress("1509 Culver St")).thenReturn(new FireResponse(List.of(3), List.of(
+                new ResidentMedicalDto("John", "Boyd", "841-874-6512", 40, List.of(), List.of("nillacilan")))));
+
+        mvc.perform(get("/fire").param("address", "1509 Culver St"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stations[0]").value(3))
+                .andExpect(jsonPath("$.residents[0].phone").value("841-874-6512"))
+                .andExpect(jsonPath("$.residents[0].allergies[0]").value("nillacilan"));
+    }
+
+    @Test
+    void fire_unknownAddress_returnsNotFound() throws Exception {
+        when(alertService.fireByAddress("unknown")).thenThrow(new IllegalArgumentException("Address not found"));
+
+        mvc.perform(get("/fire").param("address", "unknown"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Address is not found in database"));
+    }
+
+    @Test
+    void personInfo_returnsMatches() throws Exception {
+        when(alertService.personInfoByLastName("Boyd")).thenReturn(List.of(new PersonInfoDto("John", "Boyd",
+                "1509 Culver St", 40, "jaboyd@email.com", List.of("aznol:350mg"), List.of())));
+
+        mvc.perform(get("/personInfo").param("lastName", "Boyd"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].address").value("1509 Culver St"))
+                .andExpect(jsonPath("$[0].email").value("jaboyd@email.com"))
+                .andExpect(jsonPath("$[0].medications[0]").value("aznol:350mg"));
+    }
+
+    @Test
+    void personInfo_missingParam_Status400() throws Exception {
+        mvc.perform(get("/personInfo")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void communityEmail_returnsEmails() throws Exception {
+        when(alertService.communityEmail("Culver")).thenReturn(List.of("a@email.com", "b@email.com"));
+
+        mvc.perform(get("/communityEmail").param("city", "Culver"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[\"a@email.com\",\"b@email.com\"]"));
+    }
+
+    @Test
+    void firestation_ndjson_streamsOneResidentPerLineWithCountsInHeaders() throws Exception {
+        when(alertService.fireStationEtag(1)).thenReturn("\"3-7-4e20\"");
+        when(alertService.fireStationStreamByNumber(1)).thenReturn(new FireStationResponse(List.of(
+                new FireStationPersonDto("John", "Boyd", "1509 Culver St", "841-874-6512"),
+                new FireStationPersonDto("Roger", "Boyd", "1509 Culver St", "841-874-6513")), 1, 1));
+
+        MvcResult result = mvc.perform(get("/firestation").param("stationNumber", "1").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("X-Children-Count", "1"))
+                .andExpect(header().string("X-Adults-Count", "1"))
+                .andExpect(header().string("ETag", "\"3-7-4e20-nd\""))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("""
+                        {"firstName":"John","lastName":"Boyd","address":"1509 Culver St","phoneNumber":"841-874-6512"}
+                        {"firstName":"Roger","lastName":"Boyd","address":"1509 Culver St","phoneNumber":"841-874-6513"}
+                        """));
+        verify(alertService, times(0)).fireStationByNumber(1);
+    }
+
+    @Test
+    void phoneAlert_ndjson_streamsOnePhonePerLine_andHonoursEtag() throws Exception {
+        when(alertService.phoneAlertEtag(1)).thenReturn("\"3-8\"");
+        when(alertService.phoneByStation(1)).thenReturn(List.of("841-874-6512", "841-874-6513"));
+
+        MvcResult result = mvc.perform(get("/phoneAlert").param("stationNumber", "1").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("\"841-874-6512\"\n\"841-874-6513\"\n"));
+
+        mvc.perform(get("/phoneAlert").param("stationNumber", "1").accept("application/x-ndjson")
+                        .header("If-None-Match", "\"3-8-nd\""))
+                .andExpect(status().isNotModified());
+        verify(alertService, times(1)).phoneByStation(1);
+    }
+
+    @Test
+    void phoneAlert_jsonAndNdjsonEtagsDoNotValidateEachOther() throws Exception {
+        when(alertService.phoneAlertEtag(1)).thenReturn("\"1-0\"");
+        when(alertService.phoneByStation(1)).thenReturn(List.of("841-874-6512"));
+
+        MvcResult ndjson = mvc.perform(get("/phoneAlert").param("stationNumber", "1").accept("application/x-ndjson"))
+                .andExpect(header().string("ETag", "\"1-0-nd\""))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andReturn();
+        mvc.perform(asyncDispatch(ndjson)).andExpect(status().isOk());
+
+        mvc.perform(get("/phoneAlert").param("stationNumber", "1").accept("application/json")
+                        .header("If-None-Match", "\"1-0-nd\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-0\""))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andExpect(jsonPath("$[0]").value("841-874-6512"));
+        mvc.perform(get("/phoneAlert").param("stationNumber", "1").accept("application/x-ndjson")
+                        .header("If-None-Match", "\"1-0\""))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void firestation_ndjson_matchingEtag_answers304WithoutStreaming() throws Exception {
+        when(alertService.fireStationEtag(1)).thenReturn("\"3-7-4e20\"");
+
+        mvc.perform(get("/firestation").param("stationNumber", "1").accept("application/x-ndjson")
+                        .header("If-None-Match", "\"3-7-4e20-nd\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+
+        verify(alertService, times(0)).fireStationStreamByNumber(1);
+        verify(auditLog).record(eq("/firestation"), eq("1"), eq(304), eq(0), anyLong(), isNull());
+    }
+
+    @Test
+    void firestation_ndjson_unknownStation_streamsNothingWithoutEtag() throws Exception {
+        when(alertService.fireStationStreamByNumber(9)).thenReturn(new FireStationResponse(List.of(), 0, 0));
+
+        MvcResult result = mvc.perform(get("/firestation").param("stationNumber", "9").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().doesNotExist("ETag"))
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void phoneAlert_matchingEtag_answers304WithoutRecomputing() throws Exception {
+        when(alertService.phoneAlertEtag(1)).thenReturn("\"3-8\"");
+
+        mvc.perform(get("/phoneAlert").param("stationNumber", "1").header("If-None-Match", "\"3-8\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(alertService, times(0)).phoneByStation(1);
+    }
+
+    @Test
+    void childAlert_matchingEtag_answers304WithoutRecomputing() throws Exception {
+        when(alertService.childAlertEtag("1509 Culver St")).thenReturn("\"3-7\"");
+
+        mvc.perform(get("/childAlert").param("address", "1509 Culver St").header("If-None-Match", "\"3-7\""))
+                .andExpect(status().isNotModified());
+
+        verify(alertService, times(0)).childAlertByAddress("1509 Culver St");
+        verify(auditLog).record(eq("/childAlert"), eq("1509 Culver St"), eq(304), eq(0), anyLong(), isNull());
+    }
+
+    @Test
+    void firestation_recordsOneAuditEventPerAnswer_includingNotModified() throws Exception {
+        FireStationResponse payload = new FireStationResponse(
+                List.of(new FireStationPersonDto("John", "Boyd", "1509 Culver St", "841-874-6512")), 0, 1);
+        when(alertService.fireStationEtag(1)).thenReturn("\"3-7\"");
+        when(alertService.fireStationByNumber(1)).thenReturn(payload);
+
+        mvc.perform(get("/firestation").param("stationNumber", "1")).andExpect(status().isOk());
+        mvc.perform(get("/firestation").param("stationNumber", "1").header("If-None-Match", "\"3-7\""))
+                .andExpect(status().isNotModified());
+
+        verify(auditLog).record(eq("/firestation"), eq("1"), eq(200), eq(1), anyLong(), same(payload));
+        verify(auditLog).record(eq("/firestation"), eq("1"), eq(304), eq(0), anyLong(), isNull());
+    }
+
+    @Test
+    void childAlert_unknownAddress_recordsNotFound() throws Exception {
+        when(alertService.childAlertByAddress("Nowhere")).thenThrow(new IllegalArgumentException("unknown"));
+
+        mvc.perform(get("/childAlert").param("address", "Nowhere")).andExpect(status().isNotFound());
+
+        verify(auditLog).record(eq("/childAlert"), eq("Nowhere"), eq(404), eq(0), anyLong(), isNull());
+    }
 }
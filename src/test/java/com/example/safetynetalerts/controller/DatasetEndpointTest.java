@@ -0,0 +1,39 @@
+package com.example.safetynetalerts.controller;
+
+import com.example.safetynetalerts.service.DatasetReloadService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DatasetEndpointTest {
+    private final DatasetReloadService reloadService = mock(DatasetReloadService.class);
+    private final DatasetEndpoint endpoint = new DatasetEndpoint(reloadService);
+
+    @Test
+    void reload_startsBackgroundReloadAndReturnsAccepted() {
+        when(reloadService.requestReload()).thenReturn(new CompletableFuture<>());
+        when(reloadService.servedGeneration()).thenReturn(3L);
+
+        WebEndpointResponse<Map<String, String>> response = endpoint.reload();
+
+        assertThat(response.getStatus()).isEqualTo(202);
+        assertThat(response.getBody())
+                .containsEntry("message", "Dataset reload started")
+                .containsEntry("servedGeneration", "3");
+        verify(reloadService).requestReload();
+    }
+
+    @Test
+    void generation_returnsServedGeneration() {
+        when(reloadService.servedGeneration()).thenReturn(7L);
+
+        assertThat(endpoint.generation()).containsEntry("servedGeneration", "7");
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.safetynetalerts.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Person creation against the real service and the bundled data.json, which holds John Boyd.
+ */
+@SpringBootTest(properties = "safetynet.audit.enabled=false")
+@AutoConfigureMockMvc
+public class PersonControllerSpringBootTest {
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void createPerson_sameNameInOtherCase_thenConflict409() throws Exception {
+        mvc.perform(post("/person")
+                        .contentType("application/json")
+                        .content("""
+                {
+                  "firstName": "john",
+                  "lastName": "BOYD",
+                  "address": "123 Main",
+                  "city": "Katy",
+                  "zip": "77450",
+                  "phone": "911-987-0789",
+                  "email": "john@gmail.com"
+                }
+            """))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message")
+                        .value("Person with the same first and last name already exists"));
+    }
+}
@@ -3,6 +3,7 @@ package com.example.safetynetalerts.controller;
 import com.example.safetynetalerts.api.*;
 import com.example.safetynetalerts.model.Person;
 import com.example.safetynetalerts.repository.DataRepository;
+import com.example.safetynetalerts.service.PersonImportService;
 import com.example.safetynetalerts.service.PersonService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.MediaType;
@@ -29,6 +30,8 @@ public class PersonControllerTest {
     @MockitoBean
     private PersonService personService;
     @MockitoBean
+    private PersonImportService personImportService;
+    @MockitoBean
     private DataRepository dataRepository;
 
     @Test
@@ -178,6 +181,20 @@ public class PersonControllerTest {
             """))
                 .andExpect(status().isNotFound());
     }
+    @Test
+    void importPersons_ndjson_returnsSummary() throws Exception {
+        when(personImportService.importPersons(any())).thenReturn(new PersonImportResponse(2, 1, 1, 0,
+                List.of(new ImportLineError(2, ImportLineError.Status.DUPLICATE, "already exists")), false));
+
+        mvc.perform(post("/person/bulk")
+                        .contentType("application/x-ndjson")
+                        .content("{\"firstName\":\"Nancy\"}\n{\"firstName\":\"John\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[0].status").value("DUPLICATE"));
+    }
+
     private PersonCreateRequest req(
             String address, String city, String zip, String phone, String email
     ) {
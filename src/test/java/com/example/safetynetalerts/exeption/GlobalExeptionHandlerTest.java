@@ -1,10 +1,12 @@
 package com.example.safetynetalerts.exeption;
 
 import com.example.safetynetalerts.exception.GlobalExceptionHandler;
+import com.example.safetynetalerts.repository.journal.JournalException;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,4 +38,14 @@ class GlobalExceptionHandlerTest {
                 .contains("An unexpected error occurred: Something broke internally"));
     }
 
+    @Test
+    void handleJournalException_returnsServiceUnavailable() {
+        JournalException ex = new JournalException("Journal failed", new IOException("No space left on device"));
+
+        ResponseEntity<Map<String, String>> response = handler.handleJournalException(ex);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().get("message").contains("Journal failed"));
+    }
 }
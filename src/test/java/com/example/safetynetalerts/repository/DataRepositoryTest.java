@@ -1,19 +1,37 @@
 package com.example.safetynetalerts.repository;
 
+import com.example.safetynetalerts.config.DataProperties;
 import com.example.safetynetalerts.model.Firestation;
 import com.example.safetynetalerts.model.MedicalRecord;
 import com.example.safetynetalerts.model.Person;
+import com.example.safetynetalerts.repository.journal.Durability;
+import com.example.safetynetalerts.repository.journal.FileMutationJournal;
+import com.example.safetynetalerts.repository.journal.JournalEntry;
+import com.example.safetynetalerts.repository.journal.JournalException;
+import com.example.safetynetalerts.repository.journal.MutationJournal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
@@ -82,10 +100,8 @@ class DataRepositoryTest {
 
         );
 
-        // Inject fields directly (bypassing JSON loading)
-        ReflectionTestUtils.setField(repo, "persons", persons);
-        ReflectionTestUtils.setField(repo, "firestations", firestations);
-        ReflectionTestUtils.setField(repo, "medicalrecords", medicalrecords);
+        // Replace the dataset directly (bypassing JSON loading), indexes are rebuilt
+        repo.replaceData(persons, firestations, medicalrecords);
     }
 
     @Test
@@ -118,6 +134,713 @@ class DataRepositoryTest {
 
         assertThat(repo.getPersonByStation(999)).isEmpty();
     }
+    @Test
+    void getPersonByStation_addressCoveredByTwoStations_isReturnedForBoth() {
+        repo.replaceData(repo.getPersons(),
+                List.of(firestation("1509 Culver St", 1), firestation("1509 CULVER ST", 3)),
+                repo.getMedicalrecords());
+
+        assertThat(repo.getPersonByStation(1)).hasSize(3);
+        assertThat(repo.getPersonByStation(3))
+                .extracting(Person::getFirstName)
+                .containsExactlyInAnyOrder("John", "Jacob", "Felicia");
+    }
+
+    @Test
+    void addPersonIfAbsent_isVisibleThroughAddressAndStationIndexes() {
+        assertThat(repo.addPersonIfAbsent(person("Zach", "Boyd", "834 BINOC AVE", "Katy", "77450", "841-874-0000", "zach@gmail.com"))).isTrue();
+
+        assertThat(repo.getPersons()).hasSize(6);
+        assertThat(repo.getPersonsByAddress("834 Binoc Ave"))
+                .extracting(Person::getFirstName)
+                .containsExactlyInAnyOrder("Roger", "Zach");
+        assertThat(repo.getPersonByStation(1)).hasSize(5);
+    }
+
+    @Test
+    void addPersonsIfAbsent_insertsBatchIntoEveryIndexAndSkipsTakenNames() {
+        Dataset data = repo.current();
+        long version = data.getVersion();
+
+        boolean[] inserted = repo.addPersonsIfAbsent(List.of(
+                person("Zach", "Boyd", "834 BINOC AVE", "Katy", "77450", "841-874-0000", "zach@gmail.com"),
+                person("john", "BOYD", "1 Other St", "Katy", "77450", "000", "x@gmail.com"),
+                person("Anna", "Smith", "29 15th St", "Culver", "97451", "841-874-6519", "anna@gmail.com"),
+                person("ZACH", "boyd", "29 15th St", "Katy", "77450", "111", "zach2@gmail.com")));
+
+        assertThat(inserted).containsExactly(true, false, true, false);
+        assertThat(repo.getPersons()).hasSize(7);
+        assertThat(repo.getPersonsByAddress("834 Binoc Ave"))
+                .extracting(Person::getFirstName)
+                .containsExactlyInAnyOrder("Roger", "Zach");
+        assertThat(data.getStation(1).residents()).hasSize(5);
+        assertThat(data.getStation(1).unknownBirthdates()).isEqualTo(1);
+        assertThat(data.getStation(1).phones()).contains("841-874-0000");
+        // Anna shares Tenley's phone, which is listed once
+        assertThat(data.getStation(2).phones()).containsExactly("841-874-6519");
+        assertThat(data.getResidentsByLastName("smith")).hasSize(1);
+        assertThat(data.getEmailsByCity("culver")).containsExactly("anna@gmail.com");
+        assertThat(data.getEmailsByCity("katy")).contains("zach@gmail.com").doesNotContain("x@gmail.com");
+        assertThat(data.getVersion()).isEqualTo(version + 1);
+        assertThat(data.getStationVersion(2)).isEqualTo(version + 1);
+    }
+
+    @Test
+    void replaceData_sharesRepeatedValuesAndHouseholdPhones() {
+        DataRepository fresh = new DataRepository(mock(ResourceLoader.class));
+        fresh.replaceData(List.of(
+                        person("John", "Boyd", new String("1509 Culver St"), new String("Culver"), new String("97451"), new String("841-874-6512"), "john@email.com"),
+                        person("Jacob", "Boyd", new String("1509 Culver St"), new String("Culver"), new String("97451"), new String("841-874-6512"), "jacob@email.com"),
+                        person("Tenley", "Boyd", new String("29 15th St"), new String("Culver"), new String("97451"), new String("841-874-6512"), "tenley@email.com")),
+                List.of(),
+                List.of(medicalrecord("John", "Boyd", "03/06/1984", new ArrayList<>(List.of(new String("aznol:350mg"))), new ArrayList<>()),
+                        medicalrecord("Jacob", "Boyd", "03/06/1989", new ArrayList<>(List.of(new String("aznol:350mg"))), new ArrayList<>())));
+
+        Person john = fresh.findPerson("John", "Boyd").orElseThrow();
+        Person jacob = fresh.findPerson("Jacob", "Boyd").orElseThrow();
+        Person tenley = fresh.findPerson("Tenley", "Boyd").orElseThrow();
+        assertThat(jacob.getAddress()).isSameAs(john.getAddress());
+        assertThat(tenley.getCity()).isSameAs(john.getCity());
+        assertThat(tenley.getZip()).isSameAs(john.getZip());
+        // phones are only shared inside a household
+        assertThat(jacob.getPhone()).isSameAs(john.getPhone());
+        assertThat(tenley.getPhone()).isNotSameAs(john.getPhone());
+        assertThat(fresh.getMedicalRecord("Jacob", "Boyd").orElseThrow().getMedications())
+                .isSameAs(fresh.getMedicalRecord("John", "Boyd").orElseThrow().getMedications());
+
+        fresh.addPersonIfAbsent(person("Zach", "Boyd", new String("1509 CULVER ST"), new String("Culver"), "97451", new String("841-874-6512"), "zach@email.com"));
+        Person zach = fresh.findPerson("Zach", "Boyd").orElseThrow();
+        assertThat(zach.getCity()).isSameAs(john.getCity());
+        assertThat(zach.getPhone()).isSameAs(john.getPhone());
+        assertThat(zach.getAddress()).isEqualTo("1509 CULVER ST");
+    }
+
+    @Test
+    void replaceData_withoutDedupe_keepsValuesAsLoaded() {
+        DataRepository fresh = new DataRepository(mock(ResourceLoader.class), MutationJournal.DISABLED,
+                new DataProperties("classpath:data.json", null, false, false, false));
+        fresh.replaceData(List.of(
+                person("John", "Boyd", new String("1509 Culver St"), "Culver", "97451", "841-874-6512", "john@email.com"),
+                person("Jacob", "Boyd", new String("1509 Culver St"), "Culver", "97451", "841-874-6512", "jacob@email.com")),
+                List.of(firestation("1509 Culver St", 3)), List.of());
+
+        assertThat(fresh.findPerson("Jacob", "Boyd").orElseThrow().getAddress())
+                .isNotSameAs(fresh.findPerson("John", "Boyd").orElseThrow().getAddress());
+        assertThat(fresh.current().dictionarySize()).isZero();
+        assertThat(fresh.getFirestations()).extracting(Firestation::getAddress).containsExactly("1509 Culver St");
+        assertThat(fresh.getPersonByStation(3)).hasSize(2);
+    }
+
+    @Test
+    void removePerson_caseInsensitive_removesFromIndexes() {
+        assertThat(repo.removePerson("roger", "BOYD")).isTrue();
+
+        assertThat(repo.getPersons()).hasSize(4);
+        assertThat(repo.getPersonsByAddress("834 Binoc Ave")).isEmpty();
+        assertThat(repo.getPersonByStation(1)).hasSize(3);
+        assertThat(repo.removePerson("roger", "boyd")).isFalse();
+    }
+
+    @Test
+    void addPersonIfAbsent_existingNameIgnoringCase_returnsFalse() {
+        assertThat(repo.addPersonIfAbsent(person("JOHN", "boyd", "1 Other St", "Katy", "77450", "000", "x@gmail.com"))).isFalse();
+        assertThat(repo.getPersons()).hasSize(5);
+        assertThat(repo.getPersonsByAddress("1 Other St")).isEmpty();
+    }
+
+    @Test
+    void addPersonIfAbsent_concurrentInsertsOfSameName_exactlyOneWins() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Person candidate = person("Zach", "Boyd", "834 Binoc Ave", "Katy", "77450", "841-874-000" + i, "zach@gmail.com");
+            results.add(pool.submit(() -> {
+                start.await();
+                return repo.addPersonIfAbsent(candidate);
+            }));
+        }
+        start.countDown();
+        int winners = 0;
+        for (Future<Boolean> r : results) {
+            if (r.get()) winners++;
+        }
+        pool.shutdown();
+
+        assertThat(winners).isEqualTo(1);
+        assertThat(repo.getPersonsByAddress("834 Binoc Ave")).hasSize(2);
+    }
+
+    @Test
+    void replacePerson_movesPersonToNewAddressBucket() {
+        Person tenley = repo.findPerson("Tenley", "Boyd").orElseThrow();
+        Person moved = person("Tenley", "Boyd", "834 Binoc Ave", "Katy", "77450", "841-874-6519", "katy2@gmail.com");
+
+        assertThat(repo.replacePerson(tenley, moved)).isTrue();
+
+        assertThat(repo.getPersonsByAddress("29 15th St")).isEmpty();
+        assertThat(repo.getPersonByStation(2)).isEmpty();
+        assertThat(repo.getPersonsByAddress("834 Binoc Ave"))
+                .extracting(Person::getFirstName)
+                .containsExactlyInAnyOrder("Roger", "Tenley");
+        assertThat(repo.findPerson("tenley", "boyd")).containsSame(moved);
+    }
+
+    @Test
+    void residents_areJoinedWithParsedBirthdate_alsoAfterReplace() {
+        Person tenley = repo.findPerson("Tenley", "Boyd").orElseThrow();
+        Person moved = person("Tenley", "Boyd", "834 Binoc Ave", "Katy", "77450", "841-874-6519", "katy2@gmail.com");
+        repo.replacePerson(tenley, moved);
+
+        Resident resident = repo.current().getResidentsByAddress("834 binoc ave").stream()
+                .filter(r -> r.person() == moved).findFirst().orElseThrow();
+        assertThat(resident.medicalRecord().getBirthdate()).isEqualTo("10/09/2001");
+        assertThat(resident.birthEpochDay()).isEqualTo(LocalDate.of(2001, 10, 9).toEpochDay());
+    }
+
+    @Test
+    void resident_withoutRecordOrUsableBirthdate_hasNoBirthdate() {
+        Person john = repo.findPerson("John", "Boyd").orElseThrow();
+
+        assertThat(Resident.of(john, null).birthEpochDay()).isEqualTo(Resident.NO_BIRTHDATE);
+        assertThat(Resident.of(john, medicalrecord("John", "Boyd", null, List.of(), List.of())).birthEpochDay())
+                .isEqualTo(Resident.NO_BIRTHDATE);
+        assertThat(Resident.of(john, medicalrecord("John", "Boyd", "  ", List.of(), List.of())).birthEpochDay())
+                .isEqualTo(Resident.NO_BIRTHDATE);
+        assertThat(Resident.of(john, medicalrecord("John", "Boyd", "1984-03-06", List.of(), List.of())).birthEpochDay())
+                .isEqualTo(Resident.NO_BIRTHDATE);
+        assertThat(Resident.of(john, medicalrecord("John", "Boyd", " 03/06/1984 ", List.of(), List.of())).birthEpochDay())
+                .isEqualTo(LocalDate.of(1984, 3, 6).toEpochDay());
+    }
+
+    @Test
+    void stationResidents_followInsertRemoveAndReplace() {
+        Dataset data = repo.current();
+        assertThat(data.getStation(1).residents()).hasSize(4);
+        assertThat(data.getStation(1).knownBirthdates()).isEqualTo(4);
+
+        repo.addPersonIfAbsent(person("Zach", "Boyd", "834 Binoc Ave", "Katy", "77450", "000", "zach@gmail.com"));
+        assertThat(data.getStation(1).residents()).hasSize(5);
+        assertThat(data.getStation(1).unknownBirthdates()).isEqualTo(1);
+
+        Person tenley = repo.findPerson("Tenley", "Boyd").orElseThrow();
+        repo.replacePerson(tenley, person("Tenley", "Boyd", "1509 Culver St", "Katy", "77450", "841-874-6519", "katy2@gmail.com"));
+        assertThat(data.getStation(2).residents()).isEmpty();
+        assertThat(data.getStation(1).knownBirthdates()).isEqualTo(5);
+
+        repo.removePerson("John", "Boyd");
+        StationResidents station1 = data.getStation(1);
+        assertThat(station1.residents()).extracting(r -> r.person().getFirstName())
+                .containsExactlyInAnyOrder("Jacob", "Felicia", "Tenley", "Roger", "Zach");
+        // John (1999) is gone, Felicia (1998) is the only one born on or before the end of 1998
+        assertThat(station1.bornOnOrBefore((int) LocalDate.of(1998, 12, 31).toEpochDay())).isEqualTo(1);
+        assertThat(station1.bornOnOrBefore((int) LocalDate.of(2002, 2, 7).toEpochDay())).isEqualTo(3);
+    }
+
+    @Test
+    void stationPhones_areSortedDistinctAndFollowMutations() {
+        Dataset data = repo.current();
+        assertThat(data.getStation(1).phones())
+                .containsExactly("841-874-6510", "841-874-6512", "841-874-6712", "841-874-6912");
+
+        // shares Roger's phone: listed once, and kept while one of them still uses it
+        repo.addPersonIfAbsent(person("Zach", "Boyd", "834 Binoc Ave", "Katy", "77450", "841-874-6510", "zach@gmail.com"));
+        repo.addPersonIfAbsent(person("Blank", "Boyd", "834 Binoc Ave", "Katy", "77450", " ", "blank@gmail.com"));
+        assertThat(data.getStation(1).phones()).hasSize(4);
+        repo.removePerson("Roger", "Boyd");
+        assertThat(data.getStation(1).phones()).contains("841-874-6510");
+        repo.removePerson("Zach", "Boyd");
+        assertThat(data.getStation(1).phones()).doesNotContain("841-874-6510");
+
+        Person john = repo.findPerson("John", "Boyd").orElseThrow();
+        repo.replacePerson(john, person("John", "Boyd", "1509 Culver St", "Katy", "77450", "000-000-0000", "katy5@gmail.com"));
+        assertThat(data.getStation(1).phones())
+                .containsExactly("000-000-0000", "841-874-6512", "841-874-6712");
+    }
+
+    @Test
+    void versions_areBumpedOnlyWhereAMutationLands() {
+        Dataset data = repo.current();
+        long station2 = data.getStationVersion(2);
+        long culver = data.getAddressVersion("1509 Culver St");
+
+        repo.addPersonIfAbsent(person("Zach", "Boyd", "834 Binoc Ave", "Katy", "77450", "000", "zach@gmail.com"));
+
+        assertThat(data.getVersion()).isPositive();
+        assertThat(data.getStationVersion(1)).isEqualTo(data.getVersion());
+        assertThat(data.getAddressVersion("834 BINOC AVE")).isEqualTo(data.getVersion());
+        assertThat(data.getStationVersion(2)).isEqualTo(station2);
+        assertThat(data.getAddressVersion("1509 Culver St")).isEqualTo(culver);
+
+        long before = data.getVersion();
+        repo.removePerson("Tenley", "Boyd");
+        assertThat(data.getStationVersion(2)).isGreaterThan(before);
+    }
+
+    @Test
+    void householdsByStations_listsEachCoveredAddressOnce() {
+        repo.replaceData(repo.getPersons(),
+                List.of(firestation("1509 Culver St", 1), firestation("834 Binoc Ave", 1),
+                        firestation("1509 Culver St", 2), firestation("29 15th St", 2)),
+                repo.getMedicalrecords());
+
+        List<List<Resident>> households = repo.current().getHouseholdsByStations(List.of(1, 2, 99));
+
+        assertThat(households).extracting(h -> h.get(0).person().getAddress())
+                .containsExactly("1509 Culver St", "834 Binoc Ave", "29 15th St");
+        assertThat(households.get(0)).hasSize(3);
+        assertThat(households.stream().mapToInt(List::size).sum()).isEqualTo(5);
+    }
+
+    @Test
+    void householdsByStations_followsMutationsOfCoveredAddresses() {
+        repo.replaceData(repo.getPersons(),
+                List.of(firestation("1509 Culver St", 1), firestation("834 Binoc Ave", 1)),
+                repo.getMedicalrecords());
+
+        repo.addPersonIfAbsent(person("New", "Resident", "834 BINOC AVE", "Katy", "77450", "841-874-0000",
+                "new@email.com"));
+        repo.removePerson("John", "Boyd");
+        repo.removePerson("Jacob", "Boyd");
+        repo.removePerson("Felicia", "Boyd");
+
+        List<List<Resident>> households = repo.current().getHouseholdsByStations(List.of(1));
+        assertThat(households).singleElement().satisfies(household -> assertThat(household)
+                .extracting(r -> r.person().getFirstName()).containsExactly("Roger", "New"));
+    }
+
+    @Test
+    void stationsByAddress_caseInsensitive_listsEveryCoveringStation() {
+        repo.replaceData(repo.getPersons(),
+                List.of(firestation("1509 Culver St", 1), firestation("1509 CULVER ST", 3)),
+                repo.getMedicalrecords());
+
+        assertThat(repo.current().getStationsByAddress("1509 culver st")).containsExactlyInAnyOrder(1, 3);
+        assertThat(repo.current().getStationsByAddress("Unknown")).isEmpty();
+    }
+
+    @Test
+    void residentsByLastName_caseInsensitive_followsMutations() {
+        assertThat(repo.current().getResidentsByLastName("BOYD")).hasSize(5);
+
+        repo.addPersonIfAbsent(person("Zach", "Zemicks", "834 Binoc Ave", "Katy", "77450", "000", "zach@gmail.com"));
+        repo.removePerson("Roger", "Boyd");
+        Person john = repo.findPerson("John", "Boyd").orElseThrow();
+        Person moved = person("John", "Boyd", "29 15th St", "Katy", "77450", "841-874-6912", "katy5@gmail.com");
+        repo.replacePerson(john, moved);
+
+        assertThat(repo.current().getResidentsByLastName(" zemicks ")).extracting(r -> r.person().getFirstName())
+                .containsExactly("Zach");
+        List<Resident> boyds = repo.current().getResidentsByLastName("boyd");
+        assertThat(boyds).extracting(r -> r.person().getFirstName())
+                .containsExactlyInAnyOrder("John", "Jacob", "Felicia", "Tenley");
+        assertThat(boyds).filteredOn(r -> r.person() == moved).singleElement()
+                .satisfies(r -> assertThat(r.medicalRecord().getBirthdate()).isEqualTo("02/09/1999"));
+        assertThat(repo.current().getResidentsByLastName("unknown")).isEmpty();
+    }
+
+    @Test
+    void emailsByCity_areDistinctSorted_andFollowCityAndEmailChanges() {
+        repo.addPersonIfAbsent(person("Zach", "Boyd", "834 Binoc Ave", "Katy", "77450", "000", "katy1@gmail.com"));
+        assertThat(repo.current().getEmailsByCity("KATY"))
+                .containsExactly("katy1@gmail.com", "katy2@gmail.com", "katy3@gmail.com", "katy4@gmail.com", "katy5@gmail.com");
+
+        // Roger moves to Culver, Zach still uses katy1 in Katy
+        Person roger = repo.findPerson("Roger", "Boyd").orElseThrow();
+        repo.replacePerson(roger, person("Roger", "Boyd", "1 Main St", "Culver", "97451", "841-874-6510", "roger@gmail.com"));
+        assertThat(repo.current().getEmailsByCity("Katy")).contains("katy1@gmail.com").doesNotContain("roger@gmail.com");
+        assertThat(repo.current().getEmailsByCity("culver")).containsExactly("roger@gmail.com");
+
+        Person john = repo.findPerson("John", "Boyd").orElseThrow();
+        repo.replacePerson(john, person("John", "Boyd", "1509 Culver St", "Katy", "77450", "841-874-6912", "john@gmail.com"));
+        repo.removePerson("Zach", "Boyd");
+        assertThat(repo.current().getEmailsByCity("Katy"))
+                .containsExactly("john@gmail.com", "katy2@gmail.com", "katy3@gmail.com", "katy4@gmail.com");
+
+        repo.removePerson("Roger", "Boyd");
+        assertThat(repo.current().getEmailsByCity("Culver")).isEmpty();
+    }
+
+    @Test
+    void replacePerson_staleExpectedInstance_returnsFalse() {
+        Person stale = person("Tenley", "Boyd", "29 15th St", "Katy", "77450", "841-874-6519", "katy2@gmail.com");
+        Person moved = person("Tenley", "Boyd", "834 Binoc Ave", "Katy", "77450", "841-874-6519", "katy2@gmail.com");
+
+        assertThat(repo.replacePerson(stale, moved)).isFalse();
+        assertThat(repo.getPersonsByAddress("29 15th St")).hasSize(1);
+    }
+
+    @Test
+    void apply_storesACopy_andLeavesTheJournaledPersonUntouched() {
+        String address = new String("1509 Culver St");
+        Person journaled = person("Zach", "Boyd", address, "Katy", "77450", "841-874-6912", "zach@gmail.com");
+
+        repo.current().apply(JournalEntry.put(journaled));
+
+        Person stored = repo.findPerson("Zach", "Boyd").orElseThrow();
+        assertThat(stored).isNotSameAs(journaled).isEqualTo(journaled);
+        // the copy shares the household's strings, the instance another generation may serve does not change
+        assertThat(stored.getAddress()).isNotSameAs(address);
+        assertThat(journaled.getAddress()).isSameAs(address);
+        assertThat(repo.getPersonsByAddress("1509 Culver St")).contains(stored);
+    }
+
+    @Test
+    void replayJournal_appliesJournaledMutationsOnTopOfBaseData(@TempDir Path dir) {
+        Path file = dir.resolve("journal.ndjson");
+        FileMutationJournal journal = new FileMutationJournal(file, Durability.BATCH, Duration.ofMillis(20), 64);
+        DataRepository writer = new DataRepository(mock(ResourceLoader.class), journal);
+        writer.replaceData(repo.getPersons(), repo.getFirestations(), repo.getMedicalrecords());
+        writer.addPersonIfAbsent(person("Zach", "Boyd", "29 15th St", "Katy", "77450", "000", "zach@gmail.com"));
+        writer.removePerson("Roger", "Boyd");
+        Person john = writer.findPerson("John", "Boyd").orElseThrow();
+        writer.replacePerson(john, person("John", "Boyd", "834 Binoc Ave", "Katy", "77450", "841-874-6912", "katy5@gmail.com"));
+        journal.close();
+
+        FileMutationJournal reopened = new FileMutationJournal(file, Durability.BATCH, Duration.ofMillis(20), 64);
+        DataRepository restarted = new DataRepository(mock(ResourceLoader.class), reopened);
+        restarted.replaceData(repo.getPersons(), repo.getFirestations(), repo.getMedicalrecords());
+        restarted.replayJournal();
+        reopened.close();
+
+        assertThat(restarted.getPersonsByAddress("29 15th St"))
+                .extracting(Person::getFirstName)
+                .containsExactlyInAnyOrder("Tenley", "Zach");
+        assertThat(restarted.findPerson("Roger", "Boyd")).isEmpty();
+        assertThat(restarted.getPersonsByAddress("834 Binoc Ave"))
+                .extracting(Person::getFirstName)
+                .containsExactly("John");
+        assertThat(restarted.getPersonsByAddress("1509 Culver St")).hasSize(2);
+    }
+
+    @Test
+    void load_withSnapshot_restoresExportedDataAndIndexes(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("dataset.snap");
+        repo.exportSnapshot(file);
+
+        DataRepository booted = new DataRepository(mock(ResourceLoader.class), MutationJournal.DISABLED,
+                new DataProperties("classpath:data.json", file, false, true, false));
+        booted.load();
+
+        assertThat(booted.getPersons()).hasSize(5);
+        assertThat(booted.getPersonsByAddress("1509 CULVER ST")).hasSize(3);
+        assertThat(booted.getPersonByStation(1)).hasSize(4);
+        assertThat(booted.getMedicalRecord("tenley", "boyd")).get()
+                .extracting(MedicalRecord::getBirthdate).isEqualTo("10/09/2001");
+    }
+
+    @Test
+    void offHeapMedicalPayloads_areServedFromTheStore_andExported(@TempDir Path dir) throws IOException {
+        DataRepository offHeap = new DataRepository(mock(ResourceLoader.class), MutationJournal.DISABLED,
+                new DataProperties("classpath:data.json", null, false, true, true));
+        offHeap.replaceData(repo.getPersons(), repo.getFirestations(), repo.getMedicalrecords());
+
+        assertThat(offHeap.current().medicalPayloadBytes()).isPositive();
+        assertThat(offHeap.current().getResidentsByAddress("29 15th St")).singleElement()
+                .extracting(r -> r.medicalRecord().getMedications())
+                .isEqualTo(List.of("aznol:350mg", "hydrapermazol:100mg"));
+        assertThat(offHeap.getMedicalRecord("John", "Boyd")).get()
+                .isEqualTo(repo.getMedicalRecord("John", "Boyd").orElseThrow());
+
+        Path file = dir.resolve("dataset.snap");
+        offHeap.exportSnapshot(file);
+        DataRepository booted = new DataRepository(mock(ResourceLoader.class), MutationJournal.DISABLED,
+                new DataProperties("classpath:data.json", file, false, true, false));
+        booted.load();
+
+        assertThat(booted.getMedicalRecord("Roger", "Boyd")).get()
+                .extracting(MedicalRecord::getAllergies).isEqualTo(List.of("xilliathal"));
+        assertThat(booted.current().medicalPayloadBytes()).isZero();
+    }
+
+    @Test
+    void exportSnapshot_toBootSnapshot_checkpointsTheJournal(@TempDir Path dir) throws IOException {
+        Path snap = dir.resolve("dataset.snap");
+        Path file = dir.resolve("journal.ndjson");
+        DataProperties properties = new DataProperties("classpath:data.json", snap, false, true, false);
+        FileMutationJournal journal = new FileMutationJournal(file, Durability.BATCH, Duration.ofMillis(20), 64);
+        DataRepository writer = new DataRepository(mock(ResourceLoader.class), journal, properties);
+        writer.replaceData(repo.getPersons(), repo.getFirestations(), repo.getMedicalrecords());
+        writer.addPersonIfAbsent(person("Zach", "Boyd", "29 15th St", "Katy", "77450", "000", "zach@gmail.com"));
+
+        // elsewhere: the journal is still needed
+        writer.exportSnapshot(dir.resolve("copy.snap"));
+        assertThat(Files.size(file)).isPositive();
+        writer.exportSnapshot(snap);
+        assertThat(Files.size(file)).isZero();
+        writer.removePerson("Roger", "Boyd");
+        journal.close();
+
+        FileMutationJournal reopened = new FileMutationJournal(file, Durability.BATCH, Duration.ofMillis(20), 64);
+        DataRepository restarted = new DataRepository(mock(ResourceLoader.class), reopened, properties);
+        restarted.load();
+        reopened.close();
+        assertThat(restarted.findPerson("Zach", "Boyd")).isPresent();
+        assertThat(restarted.findPerson("Roger", "Boyd")).isEmpty();
+        assertThat(restarted.getPersons()).hasSize(5);
+    }
+
+    private static String json(String address) {
+        return """
+                {
+                  "persons": [
+                    {"firstName":"John","lastName":"Boyd","address":"%s","city":"Katy","zip":"77450","phone":"841-874-6512","email":"john@example.com"}
+                  ],
+                  "firestations": [ {"address":"%s","station":1} ],
+                  "medicalrecords": []
+                }
+                """.formatted(address, address);
+    }
+
+    @Test
+    void reload_swapsGeneration_andPinnedDatasetKeepsAnsweringFromOldData() throws Exception {
+        ResourceLoader loader = mock(ResourceLoader.class);
+        Resource resource = mock(Resource.class);
+        when(loader.getResource("classpath:data.json")).thenReturn(resource);
+        when(resource.getInputStream()).thenReturn(
+                new ByteArrayInputStream(json("1509 Culver St").getBytes(StandardCharsets.UTF_8)),
+                new ByteArrayInputStream(json("29 15th St").getBytes(StandardCharsets.UTF_8)));
+        DataRepository reloading = new DataRepository(loader);
+        reloading.load();
+        Dataset pinned = reloading.current();
+
+        long generation = reloading.reload();
+
+        assertThat(generation).isGreaterThan(pinned.getGeneration());
+        assertThat(reloading.getPersonsByAddress("29 15th St")).hasSize(1);
+        assertThat(reloading.getPersonsByAddress("1509 Culver St")).isEmpty();
+        // a request that started before the swap still sees a complete, consistent old generation
+        assertThat(pinned.getPersonByStation(1)).extracting(Person::getAddress).containsExactly("1509 Culver St");
+    }
+
+    @Test
+    void reload_keepsJournaledMutations(@TempDir Path dir) throws Exception {
+        ResourceLoader loader = mock(ResourceLoader.class);
+        Resource resource = mock(Resource.class);
+        when(loader.getResource("classpath:data.json")).thenReturn(resource);
+        when(resource.getInputStream()).thenAnswer(inv ->
+                new ByteArrayInputStream(json("1509 Culver St").getBytes(StandardCharsets.UTF_8)));
+        FileMutationJournal journal = new FileMutationJournal(dir.resolve("journal.ndjson"), Durability.PERIODIC,
+                Duration.ofMillis(20), 64);
+        DataRepository reloading = new DataRepository(loader, journal);
+        reloading.load();
+        reloading.addPersonIfAbsent(person("Zach", "Boyd", "1509 Culver St", "Katy", "77450", "000", "zach@gmail.com"));
+        reloading.removePerson("John", "Boyd");
+
+        reloading.reload();
+        journal.close();
+
+        assertThat(reloading.getPersonsByAddress("1509 Culver St"))
+                .extracting(Person::getFirstName)
+                .containsExactly("Zach");
+    }
+
+    @Test
+    void reload_withJournalDisabled_keepsTheMutationsSinceBoot(@TempDir Path dir) throws Exception {
+        ResourceLoader loader = mock(ResourceLoader.class);
+        Resource resource = mock(Resource.class);
+        when(loader.getResource("classpath:data.json")).thenReturn(resource);
+        when(resource.getInputStream()).thenAnswer(inv ->
+                new ByteArrayInputStream(json("1509 Culver St").getBytes(StandardCharsets.UTF_8)));
+        Path snapshot = dir.resolve("dataset.snap");
+        DataRepository reloading = new DataRepository(loader, MutationJournal.DISABLED,
+                new DataProperties("classpath:data.json", snapshot, false, true, false));
+        reloading.load();
+        reloading.addPersonIfAbsent(person("Zach", "Boyd", "1509 Culver St", "Katy", "77450", "000", "zach@gmail.com"));
+        reloading.removePerson("John", "Boyd");
+
+        reloading.reload();
+        reloading.reload();
+
+        assertThat(reloading.getPersonsByAddress("1509 Culver St"))
+                .extracting(Person::getFirstName)
+                .containsExactly("Zach");
+
+        // once in the boot snapshot the mutations are part of the base data
+        reloading.exportSnapshot(snapshot);
+        reloading.removePerson("Zach", "Boyd");
+        reloading.reload();
+
+        assertThat(reloading.getPersonsByAddress("1509 Culver St")).isEmpty();
+        assertThat(reloading.findPerson("John", "Boyd")).isEmpty();
+    }
+
+    /**
+     * Holds every append in flight until {@link #fail()}, then rejects the later ones;
+     * the "file" holds whatever was made durable before.
+     */
+    private static final class FailingJournal implements MutationJournal {
+        private final List<JournalEntry> durable = new ArrayList<>();
+        private final List<CompletableFuture<Void>> inFlight = new CopyOnWriteArrayList<>();
+        private volatile boolean failed;
+
+        @Override
+        public CompletableFuture<Void> append(JournalEntry entry) {
+            if (failed) {
+                return CompletableFuture.failedFuture(new JournalException("failed", null));
+            }
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            inFlight.add(done);
+            return done;
+        }
+
+        void fail() {
+            failed = true;
+            inFlight.forEach(f -> f.completeExceptionally(new IOException("No space left on device")));
+        }
+
+        @Override
+        public void replay(Consumer<JournalEntry> consumer) {
+            durable.forEach(consumer);
+        }
+
+        @Override
+        public void scan(Consumer<JournalEntry> consumer) {
+            durable.forEach(consumer);
+        }
+
+        @Override
+        public void checkpoint() {
+            durable.clear();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void journalFailure_rollsBackTheUndurableMutations_andRejectsLaterOnes(@TempDir Path dir) throws Exception {
+        ResourceLoader loader = mock(ResourceLoader.class);
+        Resource resource = mock(Resource.class);
+        when(loader.getResource("classpath:data.json")).thenReturn(resource);
+        when(resource.getInputStream()).thenAnswer(inv ->
+                new ByteArrayInputStream(json("1509 Culver St").getBytes(StandardCharsets.UTF_8)));
+        FailingJournal journal = new FailingJournal();
+        DataRepository failing = new DataRepository(loader, journal);
+        failing.load();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> added = executor.submit(() -> failing.addPersonIfAbsent(
+                    person("Zach", "Boyd", "1509 Culver St", "Katy", "77450", "000", "zach@gmail.com")));
+            Future<Boolean> removed = executor.submit(() -> failing.removePerson("John", "Boyd"));
+            while (journal.inFlight.size() < 2) {
+                Thread.onSpinWait();
+            }
+            // accepted by the journal, hence applied, but not acknowledged yet
+            assertThat(failing.findPerson("Zach", "Boyd")).isPresent();
+            assertThat(failing.findPerson("John", "Boyd")).isEmpty();
+
+            journal.fail();
+
+            assertThatThrownBy(added::get).hasCauseInstanceOf(JournalException.class);
+            assertThatThrownBy(removed::get).hasCauseInstanceOf(JournalException.class);
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(failing.findPerson("Zach", "Boyd")).isEmpty();
+        assertThat(failing.findPerson("John", "Boyd")).isPresent();
+        assertThatThrownBy(() -> failing.removePerson("John", "Boyd")).isInstanceOf(JournalException.class);
+        assertThatThrownBy(() -> failing.addPersonsIfAbsent(List.of(
+                person("Eric", "Cadigan", "951 LoneTree Rd", "Katy", "77450", "000", "eric@gmail.com"))))
+                .isInstanceOf(JournalException.class);
+        assertThat(failing.findPerson("John", "Boyd")).isPresent();
+        assertThat(failing.findPerson("Eric", "Cadigan")).isEmpty();
+        // a snapshot may only hold durable mutations
+        assertThatThrownBy(() -> failing.exportSnapshot(dir.resolve("dataset.snap")))
+                .isInstanceOf(JournalException.class);
+    }
+
+    @Test
+    void reload_mutationDuringTheBuild_isKept_andASecondReloadIsRefused() throws Exception {
+        ResourceLoader loader = mock(ResourceLoader.class);
+        Resource resource = mock(Resource.class);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(loader.getResource("classpath:data.json")).thenReturn(resource);
+        when(resource.getInputStream())
+                .thenAnswer(inv -> new ByteArrayInputStream(json("1509 Culver St").getBytes(StandardCharsets.UTF_8)))
+                .thenAnswer(inv -> {
+                    reading.countDown();
+                    release.await();
+                    return new ByteArrayInputStream(json("1509 Culver St").getBytes(StandardCharsets.UTF_8));
+                });
+        DataRepository reloading = new DataRepository(loader);
+        reloading.load();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> reload = executor.submit(reloading::reload);
+            reading.await();
+
+            assertThatThrownBy(reloading::reload).isInstanceOf(IllegalStateException.class);
+            reloading.addPersonIfAbsent(person("Zach", "Boyd", "1509 Culver St", "Katy", "77450", "000", "zach@gmail.com"));
+            release.countDown();
+            reload.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(reloading.getPersonsByAddress("1509 Culver St"))
+                .extracting(Person::getFirstName)
+                .containsExactlyInAnyOrder("John", "Zach");
+    }
+
+    @Test
+    void load_duplicateNamesIgnoringCase_keepTheFirstPerson() {
+        repo.replaceData(List.of(
+                        person("John", "Boyd", "1509 Culver St", "Katy", "77450", "841-874-6912", "katy5@gmail.com"),
+                        person("JOHN", "boyd ", "29 15th St", "Katy", "77450", "000", "other@gmail.com")),
+                List.of(), List.of());
+
+        assertThat(repo.getPersons()).singleElement().extracting(Person::getAddress).isEqualTo("1509 Culver St");
+        assertThat(repo.getPersonsByAddress("29 15th St")).isEmpty();
+    }
+
+    @Test
+    void load_duplicateNameInPersistedHouseholds_keepsTheFirstPerson() {
+        DatasetBuilder builder = new DatasetBuilder(StringDictionary.create(true), false);
+        builder.household("1509 culver st", List.of(
+                person("John", "Boyd", "1509 Culver St", "Katy", "77450", "841-874-6912", "katy5@gmail.com"),
+                person("Jacob", "Boyd", "1509 Culver St", "Katy", "77450", "841-874-6912", "katy4@gmail.com")));
+        builder.household("29 15th st", List.of(
+                person("john", "BOYD", "29 15th St", "Katy", "77450", "000", "other@gmail.com")));
+        builder.firestation(firestation("29 15th St", 2));
+
+        Dataset dataset = builder.build(1);
+
+        assertThat(dataset.getPersonsByAddress("1509 Culver St")).hasSize(2);
+        assertThat(dataset.getPersonsByAddress("29 15th St")).isEmpty();
+        // an address whose only resident was a duplicate is not inhabited
+        assertThat(dataset.addressCount()).isEqualTo(1);
+        assertThat(dataset.getHouseholdsByStations(List.of(2))).isEmpty();
+        assertThat(dataset.suggestAddresses("29 15th Street", 3)).isEmpty();
+        assertThat(dataset.findPerson("John", "Boyd")).get().extracting(Person::getAddress).isEqualTo("1509 Culver St");
+    }
+
+    @Test
+    void personKey_foldsCaseAndSpacing_andNullAsEmpty() {
+        assertThat(PersonKey.of(" John ", "BOYD")).isEqualTo(PersonKey.of("john", "boyd"));
+        assertThat(PersonKey.of(null, "Boyd")).isEqualTo(new PersonKey("", "boyd"));
+    }
+
+    @Test
+    void replaceData_nullLists_giveAnEmptyDataset() {
+        repo.replaceData(null, null, null);
+
+        assertThat(repo.getPersons()).isEmpty();
+        assertThat(repo.getFirestations()).isEmpty();
+        assertThat(repo.getMedicalrecords()).isEmpty();
+    }
+
+    @Test
+    void getMedicalRecord_caseInsensitive_returnsMedicalRecord() {
+        assertThat(repo.getMedicalRecord("jOHN", "boyd"))
+                .get()
+                .extracting(MedicalRecord::getBirthdate)
+                .isEqualTo("02/09/1999");
+    }
+
     @Test
     void getMedicalRecord_returnsMedicalRecord(){
         Optional<MedicalRecord> medRecord = repo.getMedicalRecord("John", "Boyd");
@@ -144,6 +867,28 @@ class DataRepositoryTest {
         Optional<MedicalRecord> medRecord = repo.getMedicalRecord("John", "Smith");
         assertThat(medRecord).isEmpty();
     }
+    @Test
+    void canonicalAddress_ignoresSuffixSpellingPunctuationAndSpacing() {
+        assertThat(repo.current().getResidentsByCanonicalAddress("1509  CULVER street."))
+                .extracting(r -> r.person().getFirstName())
+                .containsExactlyInAnyOrder("John", "Jacob", "Felicia");
+        assertThat(repo.current().getResidentsByCanonicalAddress("834 Binoc Avenue")).hasSize(1);
+        assertThat(repo.current().getResidentsByCanonicalAddress("1509 Culver Rd")).isEmpty();
+    }
+
+    @Test
+    void suggestAddresses_ranksNearMatches_andFollowsMutations() {
+        assertThat(repo.current().suggestAddresses("1509 Culvr St", 5)).first().isEqualTo("1509 Culver St");
+        assertThat(repo.current().suggestAddresses("834 Binok Av", 5)).first().isEqualTo("834 Binoc Ave");
+        assertThat(repo.current().suggestAddresses("Somewhere Else", 5)).isEmpty();
+
+        repo.addPersonIfAbsent(person("Zach", "Zemicks", "77 Binoc Ave", "Katy", "77450", "000", "zach@gmail.com"));
+        assertThat(repo.current().suggestAddresses("77 Binoc Avenu", 5)).first().isEqualTo("77 Binoc Ave");
+
+        repo.removePerson("Roger", "Boyd");
+        assertThat(repo.current().suggestAddresses("834 Binok Av", 5)).doesNotContain("834 Binoc Ave");
+    }
+
     @Test
     void load_whenJsonReadFails_shouldThrowRuntimeException() throws IOException {
         // Mock dependencies
@@ -195,9 +940,11 @@ class DataRepositoryTest {
         repo.load();
 
         // Assert
-        assertThat(ReflectionTestUtils.getField(repo, "persons")).asList().hasSize(1);
-        assertThat(ReflectionTestUtils.getField(repo, "firestations")).asList().hasSize(1);
-        assertThat(ReflectionTestUtils.getField(repo, "medicalrecords")).asList().hasSize(1);
+        assertThat(repo.getPersons()).hasSize(1);
+        assertThat(repo.getFirestations()).hasSize(1);
+        assertThat(repo.getMedicalrecords()).hasSize(1);
+        assertThat(repo.getPersonByStation(1)).hasSize(1);
+        assertThat(repo.getMedicalRecord("John", "Boyd")).isPresent();
     }
 
 }
@@ -0,0 +1,88 @@
+package com.example.safetynetalerts.repository;
+
+import com.example.safetynetalerts.model.MedicalRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MedicalPayloadStoreTest {
+
+    private static MedicalRecord record(String firstName, List<String> medications, List<String> allergies) {
+        MedicalRecord record = new MedicalRecord();
+        record.setFirstName(firstName);
+        record.setLastName("Boyd");
+        record.setBirthdate("03/06/1984");
+        record.setMedications(medications);
+        record.setAllergies(allergies);
+        return record;
+    }
+
+    @Test
+    void moveOffHeap_replacesTheRecordsByViewsDecodingTheSameLists() {
+        MedicalRecord john = record("John", List.of("aznol:350mg", "hydrapermazol:100mg"), List.of("nillacilan"));
+        Map<PersonKey, MedicalRecord> records = new HashMap<>(Map.of(PersonKey.of("John", "Boyd"), john));
+
+        MedicalPayloadStore store = MedicalPayloadStore.moveOffHeap(records);
+
+        MedicalRecord stored = records.get(PersonKey.of("John", "Boyd"));
+        assertThat(stored).isInstanceOf(MedicalPayloadStore.OffHeapRecord.class).isEqualTo(john);
+        assertThat(stored.getBirthdate()).isEqualTo("03/06/1984");
+        assertThat(stored.getMedications()).containsExactly("aznol:350mg", "hydrapermazol:100mg");
+        assertThat(stored.getAllergies()).containsExactly("nillacilan");
+        assertThat(store.size()).isPositive();
+    }
+
+    @Test
+    void moveOffHeap_keepsNullAndEmptyLists_andNullEntries() {
+        Map<PersonKey, MedicalRecord> records = new HashMap<>();
+        records.put(PersonKey.of("John", "Boyd"), record("John", null, List.of()));
+        records.put(PersonKey.of("Jacob", "Boyd"), record("Jacob", Arrays.asList(null, "tradoxidine:400mg"), null));
+
+        MedicalPayloadStore.moveOffHeap(records);
+
+        assertThat(records.get(PersonKey.of("John", "Boyd")).getMedications()).isNull();
+        assertThat(records.get(PersonKey.of("John", "Boyd")).getAllergies()).isEmpty();
+        assertThat(records.get(PersonKey.of("Jacob", "Boyd")).getMedications()).containsExactly(null, "tradoxidine:400mg");
+        assertThat(records.get(PersonKey.of("Jacob", "Boyd")).getAllergies()).isNull();
+    }
+
+    @Test
+    void moveOffHeap_encodesEachDistinctPayloadOnce() {
+        Map<PersonKey, MedicalRecord> one = new HashMap<>();
+        one.put(PersonKey.of("John", "Boyd"), record("John", List.of("aznol:350mg"), List.of("peanut")));
+        Map<PersonKey, MedicalRecord> three = new HashMap<>(one);
+        three.put(PersonKey.of("Jacob", "Boyd"), record("Jacob", new ArrayList<>(List.of("aznol:350mg")),
+                new ArrayList<>(List.of("peanut"))));
+        three.put(PersonKey.of("Tenley", "Boyd"), record("Tenley", List.of("aznol:350mg"), List.of()));
+
+        int single = MedicalPayloadStore.moveOffHeap(one).size();
+        int shared = MedicalPayloadStore.moveOffHeap(three).size();
+
+        // Jacob's payload is John's, Tenley's only lacks the allergy
+        assertThat(shared).isEqualTo(single + single - "peanut".length() - Integer.BYTES);
+    }
+
+    @Test
+    void storedRecord_listsAreReadOnly() {
+        Map<PersonKey, MedicalRecord> records = new HashMap<>(
+                Map.of(PersonKey.of("John", "Boyd"), record("John", List.of("aznol:350mg"), List.of())));
+        MedicalPayloadStore.moveOffHeap(records);
+        MedicalRecord stored = records.get(PersonKey.of("John", "Boyd"));
+
+        assertThatThrownBy(() -> stored.setMedications(List.of())).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> stored.setAllergies(List.of())).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> stored.getMedications().add("x")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void none_holdsNothing() {
+        assertThat(MedicalPayloadStore.NONE.size()).isZero();
+    }
+}
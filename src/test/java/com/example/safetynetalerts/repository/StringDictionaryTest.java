@@ -0,0 +1,87 @@
+package com.example.safetynetalerts.repository;
+
+import com.example.safetynetalerts.model.MedicalRecord;
+import com.example.safetynetalerts.model.Person;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StringDictionaryTest {
+
+    private static MedicalRecord record(String birthdate, List<String> medications, List<String> allergies) {
+        MedicalRecord record = new MedicalRecord();
+        record.setFirstName("John");
+        record.setLastName("Boyd");
+        record.setBirthdate(birthdate);
+        record.setMedications(medications);
+        record.setAllergies(allergies);
+        return record;
+    }
+
+    @Test
+    void canonicalize_sharesEqualValuesAndLists() {
+        StringDictionary dictionary = StringDictionary.create(true);
+        MedicalRecord first = record(new String("03/06/1984"), new ArrayList<>(List.of("aznol:350mg")), List.of());
+        MedicalRecord second = record(new String("03/06/1984"), new ArrayList<>(List.of(new String("aznol:350mg"))),
+                List.of());
+
+        dictionary.canonicalize(first);
+        dictionary.canonicalize(second);
+
+        assertThat(second.getBirthdate()).isSameAs(first.getBirthdate());
+        assertThat(second.getMedications()).isSameAs(first.getMedications());
+        assertThat(second.getAllergies()).isEmpty();
+        assertThat(dictionary.listCount()).isEqualTo(1);
+    }
+
+    @Test
+    void canonicalize_keepsNullsAndListsHoldingNull() {
+        StringDictionary dictionary = StringDictionary.create(true);
+        List<String> withNull = Arrays.asList("aznol:350mg", null);
+        MedicalRecord record = record(null, withNull, null);
+
+        dictionary.canonicalize(record);
+
+        assertThat(record.getBirthdate()).isNull();
+        assertThat(record.getMedications()).isSameAs(withNull);
+        assertThat(record.getAllergies()).isNull();
+        assertThat(dictionary.listCount()).isZero();
+    }
+
+    @Test
+    void canonicalize_sharesPhoneAndEmailWithinTheHouseholdOnly() {
+        StringDictionary dictionary = StringDictionary.create(true);
+        Person noContact = new Person("Tessa", "Carman", "834 Binoc Ave", "Culver", "97451", null, null);
+        Person john = new Person("John", "Boyd", "834 Binoc Ave", "Culver", "97451", "841-874-6512", "jaboyd@email.com");
+        Person jacob = new Person("Jacob", "Boyd", new String("834 Binoc Ave"), "Culver", "97451",
+                new String("841-874-6512"), new String("jaboyd@email.com"));
+
+        dictionary.canonicalize(john, List.of(noContact));
+        dictionary.canonicalize(jacob, List.of(noContact, john));
+
+        assertThat(jacob.getAddress()).isSameAs(john.getAddress());
+        assertThat(jacob.getPhone()).isSameAs(john.getPhone());
+        assertThat(jacob.getEmail()).isSameAs(john.getEmail());
+        assertThat(dictionary.stringCount()).isEqualTo(3);
+    }
+
+    @Test
+    void disabled_leavesRecordsAsTheyAre() {
+        StringDictionary dictionary = StringDictionary.create(false);
+        List<String> medications = new ArrayList<>(List.of("aznol:350mg"));
+        MedicalRecord record = record("03/06/1984", medications, null);
+        Person john = new Person("John", "Boyd", "834 Binoc Ave", "Culver", "97451", "841-874-6512", "jaboyd@email.com");
+
+        dictionary.canonicalize(record);
+        dictionary.canonicalize(john, List.of());
+
+        assertThat(record.getMedications()).isSameAs(medications);
+        assertThat(dictionary.canonical("97451")).isEqualTo("97451");
+        assertThat(dictionary.canonical(medications)).isSameAs(medications);
+        assertThat(dictionary.stringCount()).isZero();
+    }
+}
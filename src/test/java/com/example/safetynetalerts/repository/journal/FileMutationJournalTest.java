@@ -0,0 +1,176 @@
+package com.example.safetynetalerts.repository.journal;
+
+import com.example.safetynetalerts.model.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class FileMutationJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private static Person person(String firstName, String lastName, String address) {
+        return new Person(firstName, lastName, address, "Culver", "97451", "841-874-6512", "a@mail.com");
+    }
+
+    private FileMutationJournal open(Path file, Durability durability) {
+        return new FileMutationJournal(file, durability, Duration.ofMillis(20), 64);
+    }
+
+    @Test
+    void append_thenReplayAfterReopen_returnsEntriesInOrder() {
+        Path file = dir.resolve("journal.ndjson");
+        FileMutationJournal journal = open(file, Durability.BATCH);
+        journal.append(JournalEntry.put(person("John", "Boyd", "1509 Culver St"))).join();
+        journal.append(JournalEntry.put(person("John", "Boyd", "29 15th St"))).join();
+        journal.append(JournalEntry.delete("Jacob", "Boyd")).join();
+        journal.close();
+
+        List<JournalEntry> replayed = new ArrayList<>();
+        FileMutationJournal reopened = open(file, Durability.BATCH);
+        reopened.replay(replayed::add);
+        reopened.close();
+
+        assertThat(replayed).extracting(JournalEntry::op)
+                .containsExactly(JournalEntry.Op.PUT, JournalEntry.Op.PUT, JournalEntry.Op.DELETE);
+        assertThat(replayed).extracting(JournalEntry::seq).containsExactly(1L, 2L, 3L);
+        assertThat(replayed.get(1).person().getAddress()).isEqualTo("29 15th St");
+        assertThat(replayed.get(2).firstName()).isEqualTo("Jacob");
+    }
+
+    @Test
+    void replay_continuesSequenceAfterLastEntry() {
+        Path file = dir.resolve("journal.ndjson");
+        FileMutationJournal journal = open(file, Durability.PERIODIC);
+        journal.append(JournalEntry.delete("John", "Boyd")).join();
+        journal.close();
+
+        FileMutationJournal reopened = open(file, Durability.PERIODIC);
+        reopened.replay(e -> { });
+        reopened.append(JournalEntry.delete("Jacob", "Boyd")).join();
+        reopened.close();
+
+        List<JournalEntry> replayed = new ArrayList<>();
+        FileMutationJournal third = open(file, Durability.PERIODIC);
+        third.replay(replayed::add);
+        third.close();
+        assertThat(replayed).extracting(JournalEntry::seq).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void replay_tornLastLine_isTruncated() throws Exception {
+        Path file = dir.resolve("journal.ndjson");
+        FileMutationJournal journal = open(file, Durability.BATCH);
+        journal.append(JournalEntry.delete("John", "Boyd")).join();
+        journal.close();
+        Files.writeString(file, "{\"seq\":2,\"op\":\"PU", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        List<JournalEntry> replayed = new ArrayList<>();
+        FileMutationJournal reopened = open(file, Durability.BATCH);
+        reopened.replay(replayed::add);
+        reopened.close();
+
+        assertThat(replayed).hasSize(1);
+        assertThat(Files.readString(file)).endsWith("\n").doesNotContain("\"PU\"");
+    }
+
+    @Test
+    void append_manyConcurrentWriters_allBecomeDurable() {
+        Path file = dir.resolve("journal.ndjson");
+        FileMutationJournal journal = open(file, Durability.BATCH);
+        List<CompletableFuture<Void>> acks = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            int n = i;
+            acks.add(CompletableFuture.supplyAsync(() -> journal.append(JournalEntry.delete("P" + n, "Boyd")))
+                    .thenCompose(f -> f));
+        }
+        CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new)).join();
+        journal.close();
+
+        List<JournalEntry> replayed = new ArrayList<>();
+        FileMutationJournal reopened = open(file, Durability.BATCH);
+        reopened.replay(replayed::add);
+        reopened.close();
+        assertThat(replayed).hasSize(1_000);
+    }
+
+    @Test
+    void append_afterClose_failsTheFuture() {
+        FileMutationJournal journal = open(dir.resolve("journal.ndjson"), Durability.BATCH);
+        journal.close();
+
+        assertThatThrownBy(() -> journal.append(JournalEntry.delete("John", "Boyd")).join())
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void append_afterWriteFailure_failsTheBatchAndRejectsLaterEntries() {
+        // every write to /dev/full fails with ENOSPC
+        Path full = Path.of("/dev/full");
+        assumeTrue(Files.isWritable(full), "needs /dev/full");
+        FileMutationJournal journal = open(full, Durability.BATCH);
+
+        assertThatThrownBy(() -> journal.append(JournalEntry.delete("John", "Boyd")).join())
+                .hasCauseInstanceOf(IOException.class);
+        CompletableFuture<Void> later = journal.append(JournalEntry.delete("Jacob", "Boyd"));
+        journal.close();
+
+        assertThat(later).isCompletedExceptionally();
+        assertThatThrownBy(later::join).hasCauseInstanceOf(JournalException.class);
+    }
+
+    @Test
+    void open_whileAlreadyOpen_isRefused() {
+        Path file = dir.resolve("journal.ndjson");
+        FileMutationJournal journal = open(file, Durability.BATCH);
+
+        assertThatThrownBy(() -> open(file, Durability.BATCH))
+                .isInstanceOf(JournalException.class)
+                .hasMessageContaining("in use");
+        journal.close();
+    }
+
+    @Test
+    void checkpoint_dropsEntries_andLaterAppendsReplayAlone() {
+        Path file = dir.resolve("journal.ndjson");
+        FileMutationJournal journal = open(file, Durability.BATCH);
+        journal.append(JournalEntry.delete("John", "Boyd")).join();
+        journal.checkpoint();
+        journal.append(JournalEntry.delete("Jacob", "Boyd")).join();
+        journal.close();
+
+        List<JournalEntry> replayed = new ArrayList<>();
+        FileMutationJournal reopened = open(file, Durability.BATCH);
+        reopened.replay(replayed::add);
+        reopened.close();
+        assertThat(replayed).extracting(JournalEntry::firstName).containsExactly("Jacob");
+    }
+
+    @Test
+    void disabled_acknowledgesAtOnceAndKeepsNothing() {
+        MutationJournal journal = MutationJournal.DISABLED;
+        List<JournalEntry> replayed = new ArrayList<>();
+
+        assertThat(journal.append(JournalEntry.delete("John", "Boyd"))).isCompleted();
+        journal.checkpoint();
+        journal.replay(replayed::add);
+        journal.scan(replayed::add);
+        journal.close();
+
+        assertThat(replayed).isEmpty();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.safetynetalerts.repository.loader;
+
+import com.example.safetynetalerts.model.Firestation;
+import com.example.safetynetalerts.model.MedicalRecord;
+import com.example.safetynetalerts.model.Person;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+class StreamingDataLoaderTest {
+
+    private static final String JSON = """
+            {
+              "persons": [
+                {"firstName":"John","lastName":"Boyd","address":"1509 Culver St","city":"Culver","zip":"97451","phone":"841-874-6512","email":"jaboyd@email.com","nickname":"JB"},
+                {"firstName":"Jacob","lastName":"Boyd","address":"1509 Culver St","city":"Culver","zip":"97451","phone":"841-874-6513","email":"drk@email.com"}
+              ],
+              "generatedAt": {"by": "county export", "tags": ["a", "b"]},
+              "firestations": [
+                {"address":"1509 Culver St","station":"3"}
+              ],
+              "medicalrecords": [
+                {"firstName":"John","lastName":"Boyd","birthdate":"03/06/1984","medications":["aznol:350mg"],"allergies":["nillacilan"]}
+              ]
+            }
+            """;
+
+    private final StreamingDataLoader loader = new StreamingDataLoader(
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+
+    private static class CollectingSink implements DatasetSink {
+        final List<Person> persons = new ArrayList<>();
+        final List<Firestation> firestations = new ArrayList<>();
+        final List<MedicalRecord> medicalrecords = new ArrayList<>();
+
+        @Override
+        public void person(Person person) {
+            persons.add(person);
+        }
+
+        @Override
+        public void firestation(Firestation firestation) {
+            firestations.add(firestation);
+        }
+
+        @Override
+        public void medicalRecord(MedicalRecord medicalRecord) {
+            medicalrecords.add(medicalRecord);
+        }
+    }
+
+    @Test
+    void read_plainJson_streamsEveryRecordAndSkipsUnknownFields() throws IOException {
+        CollectingSink sink = new CollectingSink();
+
+        loader.read(new ByteArrayInputStream(JSON.getBytes(StandardCharsets.UTF_8)), sink);
+
+        assertThat(sink.persons).extracting(Person::getFirstName).containsExactly("John", "Jacob");
+        assertThat(sink.firestations).singleElement().extracting(Firestation::getStation).isEqualTo(3);
+        assertThat(sink.medicalrecords).singleElement().extracting(MedicalRecord::getAllergies)
+                .isEqualTo(List.of("nillacilan"));
+    }
+
+    @Test
+    void read_gzipInput_isDetectedAndDecompressed() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(compressed)) {
+            gz.write(JSON.getBytes(StandardCharsets.UTF_8));
+        }
+        CollectingSink sink = new CollectingSink();
+
+        loader.read(new ByteArrayInputStream(compressed.toByteArray()), sink);
+
+        assertThat(sink.persons).hasSize(2);
+        assertThat(sink.firestations).hasSize(1);
+        assertThat(sink.medicalrecords).hasSize(1);
+    }
+
+    @Test
+    void read_notAnObject_throwsIOException() {
+        assertThatThrownBy(() -> loader.read(new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8)),
+                new CollectingSink()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("JSON object");
+    }
+
+    @Test
+    void read_nullOrScalarElement_throwsInsteadOfDroppingTheRest() {
+        String nullPerson = """
+                {"persons": [ {"firstName":"John","lastName":"Boyd"}, null, {"firstName":"Jacob","lastName":"Boyd"} ]}
+                """;
+        String scalarStation = """
+                {"firestations": [ {"address":"1509 Culver St","station":"3"}, 3 ]}
+                """;
+
+        assertThatThrownBy(() -> loader.read(new ByteArrayInputStream(nullPerson.getBytes(StandardCharsets.UTF_8)),
+                new CollectingSink()))
+                .isInstanceOf(JsonParseException.class)
+                .hasMessageContaining("Element 1 of \"persons\" must be an object, found VALUE_NULL");
+        assertThatThrownBy(() -> loader.read(new ByteArrayInputStream(scalarStation.getBytes(StandardCharsets.UTF_8)),
+                new CollectingSink()))
+                .isInstanceOf(JsonParseException.class)
+                .hasMessageContaining("found VALUE_NUMBER_INT");
+    }
+
+    @Test
+    void read_recordFieldNotAnArray_throws() {
+        assertThatThrownBy(() -> loader.read(
+                new ByteArrayInputStream("{\"medicalrecords\": null}".getBytes(StandardCharsets.UTF_8)),
+                new CollectingSink()))
+                .isInstanceOf(JsonParseException.class)
+                .hasMessageContaining("\"medicalrecords\" must be an array");
+    }
+
+    @Test
+    void household_byDefault_handsEveryResidentToPerson() {
+        CollectingSink sink = new CollectingSink();
+        Person john = new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com");
+        Person jacob = new Person("Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "drk@email.com");
+
+        sink.household("1509 culver st", List.of(john, jacob));
+
+        assertThat(sink.persons).containsExactly(john, jacob);
+    }
+}
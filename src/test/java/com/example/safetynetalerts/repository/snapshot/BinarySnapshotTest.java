@@ -0,0 +1,93 @@
+package com.example.safetynetalerts.repository.snapshot;
+
+import com.example.safetynetalerts.model.Firestation;
+import com.example.safetynetalerts.model.MedicalRecord;
+import com.example.safetynetalerts.model.Person;
+import com.example.safetynetalerts.repository.loader.DatasetSink;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+class BinarySnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private static class CollectingSink implements DatasetSink {
+        final Map<String, List<Person>> households = new LinkedHashMap<>();
+        final List<Firestation> firestations = new ArrayList<>();
+        final List<MedicalRecord> medicalrecords = new ArrayList<>();
+
+        @Override
+        public void person(Person person) {
+            throw new AssertionError("snapshot must hand over whole households");
+        }
+
+        @Override
+        public void household(String addressKey, List<Person> residents) {
+            households.put(addressKey, residents);
+        }
+
+        @Override
+        public void firestation(Firestation firestation) {
+            firestations.add(firestation);
+        }
+
+        @Override
+        public void medicalRecord(MedicalRecord medicalRecord) {
+            medicalrecords.add(medicalRecord);
+        }
+    }
+
+    @Test
+    void writeThenRead_roundTripsHouseholdsStationsAndRecords() throws IOException {
+        Person john = new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com");
+        Person jacob = new Person("Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", null);
+        Person tenley = new Person("Tenley", "Boyd", "29 15th St", "Culver", "97451", "841-874-6512", "tenz@email.com");
+        Firestation station = new Firestation();
+        station.setAddress("1509 Culver St");
+        station.setStation(3);
+        MedicalRecord record = new MedicalRecord();
+        record.setFirstName("John");
+        record.setLastName("Boyd");
+        record.setBirthdate("03/06/1984");
+        record.setMedications(List.of("aznol:350mg", "hydrapermazol:100mg"));
+        record.setAllergies(null);
+
+        Map<String, List<Person>> households = new LinkedHashMap<>();
+        households.put("1509 culver st", List.of(john, jacob));
+        households.put("29 15th st", List.of(tenley));
+        Path file = dir.resolve("dataset.snap");
+
+        BinarySnapshot.write(file, households, List.of(station), List.of(record));
+        CollectingSink sink = new CollectingSink();
+        BinarySnapshot.read(file, sink);
+
+        assertThat(sink.households).containsOnlyKeys("1509 culver st", "29 15th st");
+        assertThat(sink.households.get("1509 culver st")).containsExactly(john, jacob);
+        assertThat(sink.households.get("29 15th st")).containsExactly(tenley);
+        assertThat(sink.firestations).containsExactly(station);
+        assertThat(sink.medicalrecords).containsExactly(record);
+        assertThat(Files.exists(dir.resolve("dataset.snap.tmp"))).isFalse();
+    }
+
+    @Test
+    void read_notASnapshot_throwsIOException() throws IOException {
+        Path file = dir.resolve("data.json");
+        Files.writeString(file, "{\"persons\":[]}");
+
+        assertThatThrownBy(() -> BinarySnapshot.read(file, new CollectingSink()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a snapshot");
+    }
+}
@@ -2,19 +2,29 @@ package com.example.safetynetalerts.service;
 
 import com.example.safetynetalerts.api.ChildAlertResponse;
 import com.example.safetynetalerts.api.ChildDto;
+import com.example.safetynetalerts.api.FireResponse;
 import com.example.safetynetalerts.api.FireStationResponse;
+import com.example.safetynetalerts.api.HouseholdDto;
+import com.example.safetynetalerts.api.PersonInfoDto;
 import com.example.safetynetalerts.api.PersonNameDto;
+import com.example.safetynetalerts.api.ResidentMedicalDto;
+import com.example.safetynetalerts.exception.AddressNotFoundException;
 import com.example.safetynetalerts.model.MedicalRecord;
 import com.example.safetynetalerts.model.Person;
 import com.example.safetynetalerts.repository.DataRepository;
+import com.example.safetynetalerts.repository.Dataset;
+import com.example.safetynetalerts.repository.Resident;
+import com.example.safetynetalerts.repository.StationResidents;
+import com.example.safetynetalerts.service.support.AgeCalculator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentMatchers;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
@@ -22,13 +32,15 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class AlertServiceTest {
-    private DataRepository dataRepository;
+    private Dataset dataset;
     private AlertService alertService;
 
     @BeforeEach
     void setUp() {
-        dataRepository = mock(DataRepository.class);
-        alertService = new AlertService(dataRepository);
+        DataRepository dataRepository = mock(DataRepository.class);
+        dataset = mock(Dataset.class);
+        when(dataRepository.current()).thenReturn(dataset);
+        alertService = new AlertService(dataRepository, new AgeCalculator(), new SimpleMeterRegistry());
     }
     @Test
     void phoneByStation_distinctAndSorted (){
@@ -38,13 +50,12 @@ public class AlertServiceTest {
         Person p3 = person("Alice", "Zed", "29 Elm", "841-874-6512"); // duplicate
         Person p4 = person("Bob", "NoPhone", "100 Oak", ""); // blank -> filtered
 
-        when(dataRepository.getPersonByStation(1)).thenReturn(List.of(p1,p2,p3,p4));
+        when(dataset.getStation(1)).thenReturn(StationResidents.of(List.of(
+                Resident.of(p1, null), Resident.of(p2, null), Resident.of(p3, null), Resident.of(p4, null))));
         List<String>phones = alertService.phoneByStation(1);
-        assertThat(phones).hasSize(2);
-        assertThat(phones).contains(p1.getPhone());
-        assertThat(phones).contains(p2.getPhone());
-        verify(dataRepository).getPersonByStation(1);
-        verifyNoMoreInteractions(dataRepository);
+        assertThat(phones).containsExactly(p1.getPhone(), p2.getPhone());
+        verify(dataset).getStation(1);
+        verifyNoMoreInteractions(dataset);
     }
     @Test
     void childAlertByAddress_ChildrenAndAdults(){
@@ -54,37 +65,54 @@ public class AlertServiceTest {
         Person kid1 = person("Tenley", "Boyd", address, "111-111-1111");
         Person kid2 = person("Roger", "Boyd", address, "222-222-2222");
 
-        when(dataRepository.getPersonsByAddress(address)).thenReturn(List.of(adult1, adult2, kid1, kid2));
-
-        //Adult
-        when(dataRepository.getMedicalRecord("John", "Boyd")).thenReturn(Optional.of(mr("John", "Boyd", "03/06/1984")));
-        when(dataRepository.getMedicalRecord("Felicia", "Boyd")).thenReturn(Optional.of(mr("Felicia", "Boyd", "10/02/1986")));
-
-        //Children
-        when(dataRepository.getMedicalRecord("Tenley", "Boyd")).thenReturn(Optional.of(mr("Tenley", "Boyd", "03/06/2010")));
-        when(dataRepository.getMedicalRecord("Roger", "Boyd")).thenReturn(Optional.of(mr("Roger", "Boyd", "02/11/2024")));
+        when(dataset.getResidentsByAddress(address)).thenReturn(List.of(
+                //Adult
+                Resident.of(adult1, mr("John", "Boyd", "03/06/1984")),
+                Resident.of(adult2, mr("Felicia", "Boyd", "10/02/1986")),
+                //Children
+                Resident.of(kid1, mr("Tenley", "Boyd", "03/06/2010")),
+                Resident.of(kid2, mr("Roger", "Boyd", "02/11/2024"))));
 
         ChildAlertResponse response = alertService.childAlertByAddress(address);
 
         assertThat(response.getChildren()).extracting(ChildDto::getFirstName).containsExactlyInAnyOrder("Tenley", "Roger");
         assertThat(response.getFamilyMembers()).extracting(PersonNameDto::getFirstName).containsExactlyInAnyOrder("John", "Felicia");
 
-        verify(dataRepository).getPersonsByAddress(address);
-        verifyNoMoreInteractions(dataRepository);
+        verify(dataset).getResidentsByAddress(address);
+        verifyNoMoreInteractions(dataset);
     }
     @Test
     void childAlertByAddress_noResidentsThrowsException() {
         // given
         String address = "Empty St";
-        when(dataRepository.getPersonsByAddress(address)).thenReturn(List.of());
+        when(dataset.getResidentsByAddress(address)).thenReturn(List.of());
+        when(dataset.getResidentsByCanonicalAddress(address)).thenReturn(List.of());
+        when(dataset.suggestAddresses(address, AlertService.MAX_ADDRESS_CANDIDATES)).thenReturn(List.of("Empty Sq"));
 
         // when / then
         assertThatThrownBy(() -> alertService.childAlertByAddress(address))
-                .isInstanceOf(IllegalArgumentException.class)
-                .hasMessageContaining("Address");
+                .isInstanceOf(AddressNotFoundException.class)
+                .hasMessageContaining("Address")
+                .satisfies(e -> assertThat(((AddressNotFoundException) e).getCandidates()).containsExactly("Empty Sq"));
 
-        verify(dataRepository).getPersonsByAddress(address);
-        verifyNoMoreInteractions(dataRepository);
+        verify(dataset).getResidentsByAddress(address);
+        verify(dataset).getResidentsByCanonicalAddress(address);
+        verify(dataset).suggestAddresses(address, AlertService.MAX_ADDRESS_CANDIDATES);
+        verifyNoMoreInteractions(dataset);
+    }
+
+    @Test
+    void childAlertByAddress_noExactMatch_answersForTheCanonicalAddress() {
+        String address = "1509 Culver Street";
+        Person child = new Person("Tenley", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "t@b.c");
+        when(dataset.getResidentsByAddress(address)).thenReturn(List.of());
+        when(dataset.getResidentsByCanonicalAddress(address)).thenReturn(List.of(
+                Resident.of(child, mr("Tenley", "Boyd", "02/18/2015"))));
+
+        ChildAlertResponse response = alertService.childAlertByAddress(address);
+
+        assertThat(response.getChildren()).extracting(ChildDto::getFirstName).containsExactly("Tenley");
+        verify(dataset, never()).suggestAddresses(anyString(), anyInt());
     }
 
     @Test
@@ -92,8 +120,7 @@ public class AlertServiceTest {
         String address = "Unknown MR St";
         Person someone = person("Alex", "Doe", address, "999-999-9999");
 
-        when(dataRepository.getPersonsByAddress(address)).thenReturn(List.of(someone));
-        when(dataRepository.getMedicalRecord("Alex", "Doe")).thenReturn(Optional.empty());
+        when(dataset.getResidentsByAddress(address)).thenReturn(List.of(Resident.of(someone, null)));
 
         ChildAlertResponse res = alertService.childAlertByAddress(address);
 
@@ -104,9 +131,8 @@ public class AlertServiceTest {
                 .extracting(PersonNameDto::getFirstName)
                 .containsExactly("Alex");
 
-        verify(dataRepository).getPersonsByAddress(address);
-        verify(dataRepository).getMedicalRecord("Alex", "Doe");
-        verifyNoMoreInteractions(dataRepository);
+        verify(dataset).getResidentsByAddress(address);
+        verifyNoMoreInteractions(dataset);
     }
 
     // ---------- /firestation ----------
@@ -117,13 +143,10 @@ public class AlertServiceTest {
         Person child = person("Roger", "Boyd", "1509 Culver St", "222-222-2222");
         Person unknown = person("NoMR", "Person", "1509 Culver St", "333-333-3333"); // no MR => counted adult
 
-        when(dataRepository.getPersonByStation(station)).thenReturn(List.of(adult, child, unknown));
-
-        when(dataRepository.getMedicalRecord("John", "Boyd"))
-                .thenReturn(Optional.of(mr("John", "Boyd", "03/06/1984"))); // adult
-        when(dataRepository.getMedicalRecord("Roger", "Boyd"))
-                .thenReturn(Optional.of(mr("Roger", "Boyd", "01/09/2015"))); // child (≤ 18)
-        when(dataRepository.getMedicalRecord("NoMR", "Person")).thenReturn(Optional.empty()); // unknown → adult
+        when(dataset.getStation(station)).thenReturn(StationResidents.of(List.of(
+                Resident.of(adult, mr("John", "Boyd", "03/06/1984")), // adult
+                Resident.of(child, mr("Roger", "Boyd", "01/09/2015")), // child (≤ 18)
+                Resident.of(unknown, null)))); // unknown → adult
 
         FireStationResponse res = alertService.fireStationByNumber(station);
 
@@ -136,11 +159,139 @@ public class AlertServiceTest {
                 .extracting(r -> r.getFirstName() + " " + r.getLastName())
                 .containsExactlyInAnyOrder("John Boyd", "Roger Boyd", "NoMR Person");
 
-        verify(dataRepository).getPersonByStation(station);
-        verify(dataRepository).getMedicalRecord("John", "Boyd");
-        verify(dataRepository).getMedicalRecord("Roger", "Boyd");
-        verify(dataRepository).getMedicalRecord("NoMR", "Person");
-        verifyNoMoreInteractions(dataRepository);
+        verify(dataset).getStation(station);
+        verifyNoMoreInteractions(dataset);
+    }
+
+    @Test
+    void firestationByNumber_eighteenYearOldCountsAsChildAndAdult_andDtosAreReusedWhileUnchanged() {
+        int station = 2;
+        String eighteen = LocalDate.now().minusYears(18).minusDays(1)
+                .format(DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+        StationResidents residents = StationResidents.of(List.of(
+                Resident.of(person("Ada", "Lee", "1 Main St", "111"), mr("Ada", "Lee", eighteen))));
+        when(dataset.getStation(station)).thenReturn(residents);
+
+        FireStationResponse first = alertService.fireStationByNumber(station);
+        FireStationResponse second = alertService.fireStationByNumber(station);
+
+        assertThat(first.getChildrenCount()).isEqualTo(1);
+        assertThat(first.getAdultsCount()).isEqualTo(1);
+        assertThat(second.getResidents()).isSameAs(first.getResidents());
+    }
+
+    @Test
+    void fireStationStreamByNumber_sameAnswerWithoutCachingTheDtos() {
+        int station = 3;
+        StationResidents residents = StationResidents.of(List.of(
+                Resident.of(person("John", "Boyd", "1509 Culver St", "111"), mr("John", "Boyd", "03/06/1984")),
+                Resident.of(person("Roger", "Boyd", "1509 Culver St", "222"), mr("Roger", "Boyd", "01/09/2015"))));
+        when(dataset.getStation(station)).thenReturn(residents);
+
+        FireStationResponse streamed = alertService.fireStationStreamByNumber(station);
+        FireStationResponse cached = alertService.fireStationByNumber(station);
+
+        assertThat(streamed.getResidents()).isEqualTo(cached.getResidents());
+        assertThat(streamed.getChildrenCount()).isEqualTo(1);
+        assertThat(streamed.getAdultsCount()).isEqualTo(1);
+        assertThat(alertService.fireStationStreamByNumber(station).getResidents()).isNotSameAs(cached.getResidents());
+    }
+
+    @Test
+    void etags_changeWithStationVersion_andUnknownAddressHasNone() {
+        when(dataset.getGeneration()).thenReturn(2L);
+        when(dataset.getStationVersion(1)).thenReturn(5L, 6L);
+        when(dataset.getResidentsByAddress("Nowhere")).thenReturn(List.of());
+
+        String before = alertService.phoneAlertEtag(1);
+        String after = alertService.phoneAlertEtag(1);
+
+        assertThat(before).isEqualTo("\"2-5\"");
+        assertThat(after).isNotEqualTo(before);
+        assertThat(alertService.childAlertEtag("Nowhere")).isNull();
+    }
+
+    @Test
+    void floodByStations_groupsResidentsByHouseholdWithMedicalData() {
+        Person john = person("John", "Boyd", "1509 Culver St", "841-874-6512");
+        Person nomr = person("NoMR", "Person", "1509 Culver St", "333-333-3333");
+        Person roger = person("Roger", "Boyd", "834 Binoc Ave", "222-222-2222");
+        MedicalRecord johnRecord = mr("John", "Boyd", "03/06/1984");
+        johnRecord.setMedications(List.of("aznol:350mg"));
+        List<List<Resident>> households = List.of(
+                List.of(Resident.of(john, johnRecord), Resident.of(nomr, null)),
+                List.of(Resident.of(roger, mr("Roger", "Boyd", "01/09/2015"))));
+        when(dataset.getHouseholdsByStations(List.of(1, 2))).thenReturn(households);
+
+        List<HouseholdDto> result = alertService.floodByStations(List.of(1, 2));
+
+        assertThat(result).extracting(HouseholdDto::getAddress).containsExactly("1509 Culver St", "834 Binoc Ave");
+        ResidentMedicalDto first = result.get(0).getResidents().get(0);
+        assertThat(first.getPhone()).isEqualTo("841-874-6512");
+        assertThat(first.getAge()).isGreaterThan(18);
+        assertThat(first.getMedications()).containsExactly("aznol:350mg");
+        ResidentMedicalDto unknown = result.get(0).getResidents().get(1);
+        assertThat(unknown.getAge()).isNull();
+        assertThat(unknown.getAllergies()).isEmpty();
+        verify(dataset).getHouseholdsByStations(List.of(1, 2));
+        verifyNoMoreInteractions(dataset);
+    }
+
+    @Test
+    void fireByAddress_joinsStationsAndResidentsMedicalData() {
+        String address = "1509 Culver St";
+        Person john = person("John", "Boyd", address, "841-874-6512");
+        MedicalRecord record = mr("John", "Boyd", "03/06/1984");
+        record.setAllergies(List.of("nillacilan"));
+        when(dataset.getStationsByAddress(address)).thenReturn(List.of(3));
+        when(dataset.getResidentsByAddress(address)).thenReturn(List.of(Resident.of(john, record)));
+
+        FireResponse res = alertService.fireByAddress(address);
+
+        assertThat(res.getStations()).containsExactly(3);
+        assertThat(res.getResidents()).singleElement().satisfies(r -> {
+            assertThat(r.getPhone()).isEqualTo("841-874-6512");
+            assertThat(r.getAllergies()).containsExactly("nillacilan");
+            assertThat(r.getAge()).isGreaterThan(18);
+        });
+    }
+
+    @Test
+    void fireByAddress_unknownAddressThrowsException() {
+        when(dataset.getStationsByAddress("Nowhere")).thenReturn(List.of());
+        when(dataset.getResidentsByAddress("Nowhere")).thenReturn(List.of());
+
+        assertThatThrownBy(() -> alertService.fireByAddress("Nowhere"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Address");
+    }
+
+    @Test
+    void personInfoByLastName_mapsEveryMatch() {
+        Person john = person("John", "Boyd", "1509 Culver St", "841-874-6512");
+        john.setEmail("jaboyd@email.com");
+        Person nomr = person("NoMR", "Boyd", "29 15th St", "333-333-3333");
+        when(dataset.getResidentsByLastName("boyd")).thenReturn(List.of(
+                Resident.of(john, mr("John", "Boyd", "03/06/1984")), Resident.of(nomr, null)));
+
+        List<PersonInfoDto> res = alertService.personInfoByLastName("boyd");
+
+        assertThat(res).extracting(PersonInfoDto::getAddress).containsExactly("1509 Culver St", "29 15th St");
+        assertThat(res.get(0).getEmail()).isEqualTo("jaboyd@email.com");
+        assertThat(res.get(0).getAge()).isGreaterThan(18);
+        assertThat(res.get(1).getAge()).isNull();
+        assertThat(res.get(1).getMedications()).isEmpty();
+        verify(dataset).getResidentsByLastName("boyd");
+        verifyNoMoreInteractions(dataset);
+    }
+
+    @Test
+    void communityEmail_returnsTheCityEmailSet() {
+        when(dataset.getEmailsByCity("Culver")).thenReturn(List.of("a@email.com", "b@email.com"));
+
+        assertThat(alertService.communityEmail("Culver")).containsExactly("a@email.com", "b@email.com");
+        verify(dataset).getEmailsByCity("Culver");
+        verifyNoMoreInteractions(dataset);
     }
 
 
@@ -0,0 +1,123 @@
+package com.example.safetynetalerts.service;
+
+import com.example.safetynetalerts.config.DataProperties;
+import com.example.safetynetalerts.repository.DataRepository;
+import com.example.safetynetalerts.repository.Dataset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+public class DatasetReloadServiceTest {
+    @TempDir
+    Path dir;
+
+    private DataRepository dataRepository;
+    private DatasetReloadService reloadService;
+
+    @BeforeEach
+    void setUp() {
+        dataRepository = mock(DataRepository.class);
+        Dataset served = mock(Dataset.class);
+        when(served.getGeneration()).thenReturn(1L);
+        when(dataRepository.current()).thenReturn(served);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (reloadService != null) {
+            reloadService.stop();
+        }
+    }
+
+    private DatasetReloadService service(String location, Path snapshot, boolean watch) {
+        reloadService = new DatasetReloadService(dataRepository,
+                new DataProperties(location, snapshot, watch, true, false), new DefaultResourceLoader());
+        return reloadService;
+    }
+
+    @Test
+    void requestReload_whileOneIsRunning_coalescesTheLaterRequestsIntoOneReload() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(dataRepository.reload()).thenAnswer(inv -> {
+            started.countDown();
+            release.await();
+            return 2L;
+        }).thenReturn(3L);
+        DatasetReloadService service = service("classpath:data.json", null, false);
+
+        CompletableFuture<Long> running = service.requestReload();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Long> second = service.requestReload();
+        CompletableFuture<Long> third = service.requestReload();
+        release.countDown();
+
+        assertThat(third).isSameAs(second).isNotSameAs(running);
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo(2L);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(3L);
+        verify(dataRepository, times(2)).reload();
+    }
+
+    @Test
+    void requestReload_failure_completesExceptionallyAndKeepsServing() {
+        when(dataRepository.reload()).thenThrow(new IllegalStateException("Error loading data json file"));
+        DatasetReloadService service = service("classpath:data.json", null, false);
+
+        assertThatThrownBy(() -> service.requestReload().get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(service.servedGeneration()).isEqualTo(1L);
+    }
+
+    @Test
+    void watch_burstOfWritesToTheDataFile_triggersOneDebouncedReload() throws Exception {
+        Path data = Files.writeString(dir.resolve("data.json"), "{}");
+        when(dataRepository.reload()).thenReturn(2L);
+        service("file:" + data, null, true).startWatching();
+
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(data, "{\"persons\":[]}".repeat(i + 1));
+            Thread.sleep(50);
+        }
+        // unrelated files in the same directory are ignored
+        Files.writeString(dir.resolve("other.json"), "{}");
+
+        verify(dataRepository, timeout(5_000)).reload();
+        Thread.sleep(1_000);
+        verify(dataRepository, times(1)).reload();
+    }
+
+    @Test
+    void watch_snapshotConfigured_watchesTheSnapshotFile() throws Exception {
+        Path snapshot = Files.writeString(dir.resolve("dataset.snap"), "v1");
+        when(dataRepository.reload()).thenReturn(2L);
+        service("classpath:data.json", snapshot, true).startWatching();
+
+        Files.writeString(snapshot, "v2");
+
+        verify(dataRepository, timeout(5_000)).reload();
+    }
+
+    @Test
+    void watch_offOrLocationNotOnDisk_startsNoWatcher() throws Exception {
+        service("classpath:data.json", null, false).startWatching();
+        service("classpath:missing.json", null, true).startWatching();
+        service("file:" + dir.resolve("missing.json"), null, true).startWatching();
+
+        Files.writeString(dir.resolve("missing.json"), "{}");
+        Thread.sleep(700);
+        verify(dataRepository, never()).reload();
+    }
+}
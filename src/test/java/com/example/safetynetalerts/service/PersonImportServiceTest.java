@@ -0,0 +1,134 @@
+package com.example.safetynetalerts.service;
+
+import com.example.safetynetalerts.api.ImportLineError;
+import com.example.safetynetalerts.api.PersonImportResponse;
+import com.example.safetynetalerts.model.Person;
+import com.example.safetynetalerts.repository.DataRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class PersonImportServiceTest {
+    private static final String NANCY = """
+            {"firstName":"Nancy","lastName":"Boyd","address":"123 Main","city":"Katy","zip":"77450","phone":"911-987-0789","email":"nancy@gmail.com"}""";
+    private static final String JOHN = """
+            {"firstName":"John","lastName":"Boyd","address":"123 Main","city":"Katy","zip":"77450","phone":"911-987-0788","email":"john@gmail.com"}""";
+
+    private DataRepository dataRepository;
+    private PersonImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        dataRepository = mock(DataRepository.class);
+        importService = new PersonImportService(dataRepository, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    private PersonImportResponse importBody(String body) throws IOException {
+        return importService.importPersons(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void importPersons_ndjson_insertsValidRecordsAndReportsRejectedLines() throws IOException {
+        List<String> batched = new ArrayList<>();
+        when(dataRepository.addPersonsIfAbsent(anyList())).thenAnswer(inv -> {
+            List<Person> batch = inv.getArgument(0);
+            batch.forEach(p -> batched.add(p.getFirstName()));
+            return new boolean[] { true, false };
+        });
+
+        PersonImportResponse response = importBody(NANCY + "\n"
+                + "{\"firstName\":\"Bad\",\"lastName\":\"Boyd\",\"email\":\"not-an-email\"}\n"
+                + JOHN + "\n");
+
+        verify(dataRepository).addPersonsIfAbsent(anyList());
+        assertThat(batched).containsExactly("Nancy", "John");
+        assertThat(response.getReceived()).isEqualTo(3);
+        assertThat(response.getCreated()).isEqualTo(1);
+        assertThat(response.getDuplicates()).isEqualTo(1);
+        assertThat(response.getInvalid()).isEqualTo(1);
+        assertThat(response.getErrors()).extracting(ImportLineError::getLine, ImportLineError::getStatus)
+                .containsExactly(
+                        tuple(2, ImportLineError.Status.INVALID),
+                        tuple(3, ImportLineError.Status.DUPLICATE));
+        assertThat(response.getErrors().get(0).getMessage()).contains("address", "email");
+    }
+
+    @Test
+    void importPersons_jsonArray_insertsInBatches() throws IOException {
+        int total = PersonImportService.BATCH_SIZE + 1;
+        List<Integer> batchSizes = new ArrayList<>();
+        when(dataRepository.addPersonsIfAbsent(anyList())).thenAnswer(inv -> {
+            List<Person> batch = inv.getArgument(0);
+            batchSizes.add(batch.size());
+            boolean[] inserted = new boolean[batch.size()];
+            Arrays.fill(inserted, true);
+            return inserted;
+        });
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < total; i++) {
+            body.append(i == 0 ? "" : ",").append(NANCY.replace("Nancy", "Nancy" + i));
+        }
+
+        PersonImportResponse response = importBody(body.append("]").toString());
+
+        assertThat(batchSizes).containsExactly(PersonImportService.BATCH_SIZE, 1);
+        assertThat(response.getReceived()).isEqualTo(total);
+        assertThat(response.getCreated()).isEqualTo(total);
+        assertThat(response.getErrors()).isEmpty();
+    }
+
+    @Test
+    void importPersons_syntaxError_stopsAndKeepsEarlierRecords() throws IOException {
+        when(dataRepository.addPersonsIfAbsent(anyList())).thenReturn(new boolean[] { true });
+
+        PersonImportResponse response = importBody(NANCY + "\n{\"firstName\": \n" + JOHN + "\n");
+
+        verify(dataRepository).addPersonsIfAbsent(anyList());
+        assertThat(response.getCreated()).isEqualTo(1);
+        assertThat(response.getErrors()).singleElement()
+                .extracting(ImportLineError::getStatus).isEqualTo(ImportLineError.Status.MALFORMED);
+    }
+
+    @Test
+    void importPersons_emptyBody_importsNothing() throws IOException {
+        PersonImportResponse response = importBody("");
+
+        verifyNoInteractions(dataRepository);
+        assertThat(response.getReceived()).isZero();
+        assertThat(response.getErrors()).isEmpty();
+    }
+
+    @Test
+    void importPersons_manyRejectedLines_reportsTheFirstOnesAndFlagsTheRest() throws IOException {
+        int total = PersonImportService.MAX_REPORTED_ERRORS + 5;
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < total; i++) {
+            // a name must be a string: the record does not bind to a person
+            body.append("{\"firstName\":{\"n\":").append(i).append("}}\n");
+        }
+
+        PersonImportResponse response = importBody(body.toString());
+
+        verifyNoInteractions(dataRepository);
+        assertThat(response.getReceived()).isEqualTo(total);
+        assertThat(response.getInvalid()).isEqualTo(total);
+        assertThat(response.getErrors()).hasSize(PersonImportService.MAX_REPORTED_ERRORS)
+                .allSatisfy(error -> assertThat(error.getMessage()).isEqualTo("not a person record"));
+        assertThat(response.getErrors().get(0).getLine()).isEqualTo(1);
+        assertThat(response.isErrorsTruncated()).isTrue();
+    }
+}
@@ -6,12 +6,14 @@ import com.example.safetynetalerts.model.Person;
 import com.example.safetynetalerts.repository.DataRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class PersonServiceTest {
@@ -32,7 +34,8 @@ public class PersonServiceTest {
                 "1509 Culver St", "Culver", "97451",
                 "841-874-6512", "old@mail.com"
         );
-        when(dataRepository.getPersons()).thenReturn(List.of(john));
+        when(dataRepository.findPerson("John", "Boyd")).thenReturn(Optional.of(john));
+        when(dataRepository.replacePerson(eq(john), any(Person.class))).thenReturn(true);
 
         PersonCreateRequest req = new PersonCreateRequest();
         req.setAddress("1509 Culver Street");
@@ -43,14 +46,20 @@ public class PersonServiceTest {
 
         PersonService.UpdateOutcome outcome = personService.updatePersonFields("John", "Boyd", req);
 
-        assertThat(john.getCity()).isEqualTo("NewCity");
-        assertThat(john.getEmail()).isEqualTo("new@mail.com");
-        assertThat(john.getAddress()).isEqualTo("1509 Culver Street");
-        assertThat(john.getZip()).isEqualTo("97452");
-        assertThat(john.getPhone()).isEqualTo("841-874-6513");
-
-        verify(dataRepository).getPersons();
+        ArgumentCaptor<Person> captor = ArgumentCaptor.forClass(Person.class);
+        verify(dataRepository).findPerson("John", "Boyd");
+        verify(dataRepository).replacePerson(eq(john), captor.capture());
         verifyNoMoreInteractions(dataRepository);
+
+        Person updated = captor.getValue();
+        assertThat(outcome.status()).isEqualTo(PersonService.UpdateStatus.UPDATED);
+        assertThat(updated.getCity()).isEqualTo("NewCity");
+        assertThat(updated.getEmail()).isEqualTo("new@mail.com");
+        assertThat(updated.getAddress()).isEqualTo("1509 Culver Street");
+        assertThat(updated.getZip()).isEqualTo("97452");
+        assertThat(updated.getPhone()).isEqualTo("841-874-6513");
+        // the stored instance is never modified in place
+        assertThat(john.getCity()).isEqualTo("Culver");
     }
     @Test
     void updatePersonFields_noChanges_returnsNO_CHANGE() {
@@ -60,7 +69,7 @@ public class PersonServiceTest {
                 null, null, null,
                 null, null
         );
-        when(dataRepository.getPersons()).thenReturn(List.of(jane));
+        when(dataRepository.findPerson("Jane", "Doe")).thenReturn(Optional.of(jane));
 
         PersonCreateRequest req = new PersonCreateRequest();
         req.setAddress(null);
@@ -78,15 +87,17 @@ public class PersonServiceTest {
         assertThat(jane.getAddress()).isEqualTo(null);
         assertThat(jane.getZip()).isEqualTo(null);
         assertThat(jane.getPhone()).isEqualTo(null);
+        assertThat(outcome.status()).isEqualTo(PersonService.UpdateStatus.NO_CHANGE);
 
-        verify(dataRepository).getPersons();
+        verify(dataRepository).findPerson("Jane", "Doe");
         verifyNoMoreInteractions(dataRepository);
     }
     @Test
     void updatePersonFields_personFound_branchTrue() {
         // given: Person list contains a matching first+last name
         Person john = new Person("John", "Boyd", "123 Main", "City", "11111", "000-000", "old@mail.com");
-        when(dataRepository.getPersons()).thenReturn(List.of(john));
+        when(dataRepository.findPerson("John", "Boyd")).thenReturn(Optional.of(john));
+        when(dataRepository.replacePerson(eq(john), any(Person.class))).thenReturn(true);
 
         // Update request (some change)
         PersonCreateRequest req = new PersonCreateRequest();
@@ -102,71 +113,80 @@ public class PersonServiceTest {
 
         // then
         assertThat(outcome.status()).isEqualTo(PersonService.UpdateStatus.UPDATED);
-        assertThat(john.getAddress()).isEqualTo("456 Oak St");
+        assertThat(john.getAddress()).isEqualTo("123 Main");
 
-        verify(dataRepository).getPersons();
+        ArgumentCaptor<Person> captor = ArgumentCaptor.forClass(Person.class);
+        verify(dataRepository).findPerson("John", "Boyd");
+        verify(dataRepository).replacePerson(eq(john), captor.capture());
         verifyNoMoreInteractions(dataRepository);
+        assertThat(captor.getValue().getAddress()).isEqualTo("456 Oak St");
+    }
+
+    @Test
+    void updatePersonFields_concurrentReplace_retriesAgainstFreshCopy() {
+        Person stale = new Person("John", "Boyd", "123 Main", "City", "11111", "000-000", "old@mail.com");
+        Person fresh = new Person("John", "Boyd", "123 Main", "City", "11111", "999-999", "old@mail.com");
+        when(dataRepository.findPerson("John", "Boyd")).thenReturn(Optional.of(stale), Optional.of(fresh));
+        when(dataRepository.replacePerson(eq(stale), any(Person.class))).thenReturn(false);
+        when(dataRepository.replacePerson(eq(fresh), any(Person.class))).thenReturn(true);
+
+        PersonCreateRequest req = new PersonCreateRequest();
+        req.setAddress("456 Oak St");
+        req.setCity("City");
+        req.setZip("11111");
+        req.setPhone("999-999");
+        req.setEmail("old@mail.com");
+
+        PersonService.UpdateOutcome outcome = personService.updatePersonFields("John", "Boyd", req);
+
+        assertThat(outcome.status()).isEqualTo(PersonService.UpdateStatus.UPDATED);
+        verify(dataRepository, times(2)).findPerson("John", "Boyd");
+        verify(dataRepository).replacePerson(eq(fresh), any(Person.class));
     }
     @Test
     void deletePerson_success_removesAndReturnsTrue() {
-        // given: a mutable list from the repository
-        Person john = new Person("John","Boyd","1509 Culver St","Culver","97451","841-874-6512","john@mail.com");
-        Person jane = new Person("Jane","Doe","123 Main St","Katy","77000","111-222-3333","jane@mail.com");
-        List<Person> people = new ArrayList<>(List.of(john, jane));
-        when(dataRepository.getPersons()).thenReturn(people);
+        // given: the repository finds and removes the person
+        when(dataRepository.removePerson("John","Boyd")).thenReturn(true);
 
         // when
         boolean result = personService.deletePerson("John","Boyd");
 
         // then
         assertThat(result).isTrue();
-        assertThat(people).doesNotContain(john);   // actually removed
-        assertThat(people).contains(jane);         // others remain
 
-        verify(dataRepository).getPersons();
+        verify(dataRepository).removePerson("John","Boyd");
         verifyNoMoreInteractions(dataRepository);
     }
     @Test
     void deletePerson_notFound_returnsFalseAndListUnchanged() {
         // given
-        Person jane = new Person(
-                "Jane", "Doe",
-                "123 Main St", "Katy", "77000",
-                "111-222-3333", "jane@mail.com"
-        );
-        List<Person> people = new ArrayList<>(List.of(jane));
-        when(dataRepository.getPersons()).thenReturn(people);
+        when(dataRepository.removePerson("John", "Boyd")).thenReturn(false);
 
         // when
         boolean result = personService.deletePerson("John", "Boyd"); // does not exist
 
         // then
         assertThat(result).isFalse();              // should return false
-        assertThat(people).containsExactly(jane);  // list remains unchanged
 
-        verify(dataRepository).getPersons();
+        verify(dataRepository).removePerson("John", "Boyd");
         verifyNoMoreInteractions(dataRepository);
     }
     @Test
     void deletePerson_caseInsensitiveMatch_returnsTrue() {
-        Person john = new Person("John","Boyd","1509 Culver St","Culver","97451","841-874-6512","john@mail.com");
-        List<Person> people = new ArrayList<>(List.of(john));
-        when(dataRepository.getPersons()).thenReturn(people);
+        when(dataRepository.removePerson("john","BOYD")).thenReturn(true);
 
         boolean result = personService.deletePerson("john","BOYD");
 
         assertThat(result).isTrue();
-        assertThat(people).isEmpty();
 
-        verify(dataRepository).getPersons();
+        verify(dataRepository).removePerson("john","BOYD");
         verifyNoMoreInteractions(dataRepository);
     }
 
     @Test
     void createPerson_success_addsPersonAndReturnsTrue() {
         // given
-        List<Person> people = new ArrayList<>();
-        when(dataRepository.getPersons()).thenReturn(people);
+        when(dataRepository.addPersonIfAbsent(any(Person.class))).thenReturn(true);
 
         PersonCreateRequest req = new PersonCreateRequest();
         req.setFirstName("John");
@@ -179,7 +199,9 @@ public class PersonServiceTest {
 
         PersonResponse result = personService.create(req);
 
-        Person created = people.get(0);
+        ArgumentCaptor<Person> captor = ArgumentCaptor.forClass(Person.class);
+        verify(dataRepository).addPersonIfAbsent(captor.capture());
+        Person created = captor.getValue();
         assertThat(created.getFirstName()).isEqualTo("John");
         assertThat(created.getLastName()).isEqualTo("Boyd");
         assertThat(created.getAddress()).isEqualTo("1509 Culver St");
@@ -187,21 +209,15 @@ public class PersonServiceTest {
         assertThat(created.getZip()).isEqualTo("97451");
         assertThat(created.getPhone()).isEqualTo("841-874-6512");
         assertThat(created.getEmail()).isEqualTo("john@mail.com");
+        assertThat(result.getFirstName()).isEqualTo("John");
 
-        verify(dataRepository, atLeastOnce()).getPersons();
         verifyNoMoreInteractions(dataRepository);
 
     }
     @Test
     void createPerson_existingName_throwsIllegalStateException() {
-        // given
-        Person existing = new Person(
-                "John", "Boyd",
-                "1509 Culver St", "Culver", "97451",
-                "841-874-6512", "john@mail.com"
-        );
-        List<Person> people = new ArrayList<>(List.of(existing));
-        when(dataRepository.getPersons()).thenReturn(people);
+        // given: the name is already taken
+        when(dataRepository.addPersonIfAbsent(any(Person.class))).thenReturn(false);
 
         PersonCreateRequest req = new PersonCreateRequest();
         req.setFirstName("John");
@@ -216,15 +232,14 @@ public class PersonServiceTest {
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("already exists");
 
-        verify(dataRepository, atLeastOnce()).getPersons();
+        verify(dataRepository).addPersonIfAbsent(any(Person.class));
         verifyNoMoreInteractions(dataRepository);
     }
 
     @Test
     void updatePersonFields_personNotFound_returnsNOT_FOUND_andLogsWarning() {
 
-        List<Person> people = new ArrayList<>(); // no persons
-        when(dataRepository.getPersons()).thenReturn(people);
+        when(dataRepository.findPerson("John", "Boyd")).thenReturn(Optional.empty()); // no persons
 
         PersonCreateRequest req = new PersonCreateRequest();
         req.setAddress("123 Main St");
@@ -237,7 +252,7 @@ public class PersonServiceTest {
 
         assertThat(outcome.status()).isEqualTo(PersonService.UpdateStatus.NOT_FOUND);
 
-        verify(dataRepository).getPersons();
+        verify(dataRepository).findPerson("John", "Boyd");
         verifyNoMoreInteractions(dataRepository);
     }
 
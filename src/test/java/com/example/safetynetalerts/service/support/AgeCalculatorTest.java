@@ -0,0 +1,60 @@
+package com.example.safetynetalerts.service.support;
+
+import com.example.safetynetalerts.repository.Resident;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AgeCalculatorTest {
+
+    @Test
+    void ageMatchesFullYearsAroundBirthday() {
+        AgeCalculator ages = new AgeCalculator(fixed(LocalDate.of(2024, 6, 15)));
+
+        assertThat(ages.ageOf(day(2006, 6, 15))).isEqualTo(18);
+        assertThat(ages.ageOf(day(2006, 6, 16))).isEqualTo(17);
+        assertThat(ages.ageOf(day(1984, 3, 6))).isEqualTo(40);
+        assertThat(ages.ageOf(day(2024, 6, 15))).isZero();
+        assertThat(ages.ageOf(day(2025, 1, 1))).isZero();
+        assertThat(ages.ageOf(Resident.NO_BIRTHDATE)).isEqualTo(PersonAge.UNKNOWN);
+    }
+
+    @Test
+    void tableIsRebuiltAfterMidnight() {
+        AtomicReference<Instant> now = new AtomicReference<>(LocalDate.of(2024, 6, 14).atTime(23, 59)
+                .toInstant(ZoneOffset.UTC));
+        Clock clock = new Clock() {
+            public ZoneId getZone() { return ZoneOffset.UTC; }
+            public Clock withZone(ZoneId zone) { return this; }
+            public Instant instant() { return now.get(); }
+        };
+        AgeCalculator ages = new AgeCalculator(clock);
+        assertThat(ages.ageOf(day(2006, 6, 15))).isEqualTo(17);
+
+        now.set(LocalDate.of(2024, 6, 15).atStartOfDay().toInstant(ZoneOffset.UTC));
+        assertThat(ages.ageOf(day(2006, 6, 15))).isEqualTo(18);
+    }
+
+    @Test
+    void classificationKeepsEighteenOnBothSides() {
+        assertThat(PersonAge.isChild(18)).isTrue();
+        assertThat(PersonAge.isAdult(18)).isTrue();
+        assertThat(PersonAge.isChild(PersonAge.UNKNOWN)).isFalse();
+        assertThat(PersonAge.isAdult(PersonAge.UNKNOWN)).isTrue();
+    }
+
+    private static Clock fixed(LocalDate date) {
+        return Clock.fixed(date.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    }
+
+    private static int day(int year, int month, int dayOfMonth) {
+        return (int) LocalDate.of(year, month, dayOfMonth).toEpochDay();
+    }
+}